@@ -0,0 +1,42 @@
+package Shooting;
+
+import java.util.Random;
+
+// Seeded boards for the benchmarks: the top rows of the play area filled at a
+// given ratio with the five colours of level 1.
+final class BenchmarkBoards {
+    static final long SEED = 42;
+
+    private BenchmarkBoards() {
+    }
+
+    static Level layout(int rows, double fill) {
+        Random random = new Random(SEED);
+        Level layout = new Level(BubbleShooterGame.BOARD_ROWS, BubbleShooterGame.BOARD_COLS,
+                                 BubbleShooterGame.colorsForLevel(1));
+        for (int row = 0; row < Math.min(rows, layout.rows); row++) {
+            for (int col = 0; col < layout.cols; col++) {
+                if (random.nextDouble() < fill) {
+                    layout.set(row, col, random.nextInt(layout.colorCount));
+                }
+            }
+        }
+        return layout;
+    }
+
+    // Cell index (row * cols + col) of the bubble halfway through the board in reading order
+    static int middleBubble(Level board) {
+        int remaining = board.bubbleCount() / 2;
+        for (int cell = 0; cell < board.cells.length; cell++) {
+            if (board.cells[cell] != 0 && remaining-- == 0) return cell;
+        }
+        return 0;
+    }
+
+    // Headless game showing the layout, no timer or listeners
+    static BubbleShooterGame game(Level layout) {
+        BubbleShooterGame game = new BubbleShooterGame(new Random(SEED), false);
+        game.startLevel(layout);
+        return game;
+    }
+}
@@ -0,0 +1,101 @@
+package Shooting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Engine hot paths. Boards are parameterized by the number of filled rows and
+// the fill ratio of those rows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EngineBenchmark {
+
+    @State(Scope.Thread)
+    public static class Board {
+        @Param({"4", "8", "12"})
+        public int rows;
+
+        @Param({"0.5", "0.75", "1.0"})
+        public double fill;
+
+        Level layout;
+        BubbleShooterGame game;
+        int probeRow;
+        int probeCol;
+
+        @Setup(org.openjdk.jmh.annotations.Level.Trial)
+        public void createBoard() {
+            layout = BenchmarkBoards.layout(rows, fill);
+            game = BenchmarkBoards.game(layout);
+            int probe = BenchmarkBoards.middleBubble(game.board);
+            probeRow = probe / game.board.cols;
+            probeCol = probe % game.board.cols;
+        }
+    }
+
+    // Rebuilt before every call for the benchmarks that pop, drop or move bubbles
+    @State(Scope.Thread)
+    public static class FreshBoard extends Board {
+        @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+        public void resetBoard() {
+            game.loadLevel(layout);
+            // One shot in flight just above the shooter, clear of the board
+            game.fireAt(BubbleShooterGame.WINDOW_WIDTH / 2 + 40, BubbleShooterGame.SHOOTER_Y - 100);
+        }
+    }
+
+    @Benchmark
+    public int checkMatches(FreshBoard board) {
+        board.game.checkMatches(board.probeRow, board.probeCol);
+        return board.game.board.bubbleCount();
+    }
+
+    @Benchmark
+    public int removeFloatingBubbles(FreshBoard board) {
+        board.game.removeFloatingBubbles();
+        return board.game.board.bubbleCount();
+    }
+
+    @Benchmark
+    public int updateGame(FreshBoard board) {
+        board.game.updateGame();
+        return board.game.shootingBubbles.size();
+    }
+
+    @Benchmark
+    public List<Point> calculateTrajectory(Board board) {
+        int startX = BubbleShooterGame.WINDOW_WIDTH / 2;
+        int startY = BubbleShooterGame.SHOOTER_Y + BubbleShooterGame.BUBBLE_SIZE / 2;
+        return board.game.calculateTrajectory(startX, startY, startX - 120, startY - 200);
+    }
+
+    // A shot's collision test, a bubble's width below the probe bubble
+    @Benchmark
+    public boolean touchesBoard(Board board) {
+        int centre = BubbleShooterGame.BUBBLE_SIZE / 2;
+        return board.game.touchesBoard(Level.cellX(board.probeRow, board.probeCol) + centre,
+                                       Level.cellY(board.probeRow) + centre + BubbleShooterGame.BUBBLE_SIZE,
+                                       BubbleShooterGame.BUBBLE_SIZE - 3);
+    }
+
+    // Size of the probe bubble's colour group, the flood fill behind matching
+    @Benchmark
+    public int groupSize(Board board) {
+        return board.game.board.groupSize(board.probeRow, board.probeCol);
+    }
+}
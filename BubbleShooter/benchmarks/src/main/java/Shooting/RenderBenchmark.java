@@ -0,0 +1,76 @@
+package Shooting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Renderer hot paths, drawn into an offscreen image so no display is needed
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({"4", "8", "12"})
+    public int rows;
+
+    @Param({"0.5", "0.75", "1.0"})
+    public double fill;
+
+    @Param({"legacy", "cached", "bloom", "tiled"})
+    public String renderer;
+
+    private BubbleShooterGame game;
+    private Bubble bubble;
+    private BufferedImage canvas;
+    private Graphics2D g2d;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void createCanvas() {
+        game = BenchmarkBoards.game(BenchmarkBoards.layout(rows, fill));
+        game.setSize(BubbleShooterGame.WINDOW_WIDTH, BubbleShooterGame.WINDOW_HEIGHT);
+        game.renderMode = RenderMode.valueOf(renderer.toUpperCase(Locale.ROOT));
+        int cell = BenchmarkBoards.middleBubble(game.board);
+        int row = cell / game.board.cols;
+        bubble = new Bubble(Level.cellX(row, cell % game.board.cols), Level.cellY(row), game.board.cells[cell] - 1);
+
+        canvas = new BufferedImage(BubbleShooterGame.WINDOW_WIDTH, BubbleShooterGame.WINDOW_HEIGHT,
+                                   BufferedImage.TYPE_INT_RGB);
+        g2d = canvas.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void disposeCanvas() {
+        g2d.dispose();
+        game.close();
+    }
+
+    @Benchmark
+    public BufferedImage drawEnhancedBubble() {
+        game.drawEnhancedBubble(g2d, bubble);
+        return canvas;
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        game.paintComponent(g2d);
+        return canvas;
+    }
+}
@@ -0,0 +1,68 @@
+package Shooting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// How the tiled renderer scales with the number of workers: a full
+// paintComponent of a busy board, at the window's size and at twice it as on
+// a 200% display. tiles=1 paints every band on the calling thread and is the
+// single-core reference. Workers beyond the machine's cores only add handoffs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TiledRenderBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int tiles;
+
+    @Param({"1", "2"})
+    public int scale;
+
+    private BubbleShooterGame game;
+    private BufferedImage canvas;
+    private Graphics2D g2d;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void createCanvas() {
+        // Read when the first tiled frame starts the workers
+        System.setProperty(TiledRenderer.THREADS_PROPERTY, String.valueOf(tiles));
+        game = BenchmarkBoards.game(BenchmarkBoards.layout(8, 0.75));
+        int width = BubbleShooterGame.WINDOW_WIDTH * scale;
+        int height = BubbleShooterGame.WINDOW_HEIGHT * scale;
+        game.setSize(width, height);
+        game.renderMode = RenderMode.TILED;
+
+        canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        g2d = canvas.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void disposeCanvas() {
+        g2d.dispose();
+        game.close();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        game.paintComponent(g2d);
+        return canvas;
+    }
+}
@@ -0,0 +1,119 @@
+package Shooting;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// A fixed set of threads that share out the numbered bands of a pass of work.
+// The thread calling run() is one of them: it wakes the others, takes bands
+// off a shared counter with them and parks until the last one is done. A
+// fork/join pool would do the same, but a thread outside the pool waiting on
+// a task allocates a wait node every pass, and the common pool is shared with
+// whatever else the JVM runs in parallel. The workers park between passes and
+// run until close().
+class BandWorkers {
+    // Does band number band of a pass. Called on several threads at once.
+    interface Work {
+        void run(int band);
+    }
+
+    private final Work work;
+    private final int bands;
+    private final Thread[] workers;
+
+    // Next band to take and bands finished in the current pass; a new pass
+    // bumps the generation the workers park on
+    private final AtomicInteger nextBand = new AtomicInteger();
+    private final AtomicInteger finishedBands = new AtomicInteger();
+    private volatile int generation;
+    private volatile Thread caller;
+    private volatile RuntimeException failure;
+    // Written before the generation is bumped, so a worker woken by it sees it
+    private volatile boolean closed;
+
+    // threads counts the caller, so one starts no workers and runs every band inline
+    BandWorkers(String name, int threads, int bands, Work work) {
+        this.work = work;
+        this.bands = bands;
+        // Nothing to finish a pass before all bands are claimed
+        nextBand.set(bands);
+        finishedBands.set(bands);
+        workers = new Thread[Math.max(1, threads) - 1];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::work, name + "-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    int threads() {
+        return workers.length + 1;
+    }
+
+    int bands() {
+        return bands;
+    }
+
+    // Runs every band and returns once all are done. Whatever the caller set
+    // up beforehand is visible to the workers: the counters are written after
+    // it and read before any band is run.
+    void run() {
+        if (closed) throw new IllegalStateException("Band workers closed");
+        caller = Thread.currentThread();
+        failure = null;
+        finishedBands.set(0);
+        nextBand.set(0);
+        generation++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        runClaimedBands();
+        while (finishedBands.get() < bands) {
+            LockSupport.park(this);
+        }
+        RuntimeException failed = failure;
+        if (failed != null) throw failed;
+    }
+
+    // Stops the workers. Call it from the thread that runs passes, or once
+    // nothing does.
+    void close() {
+        if (closed) return;
+        closed = true;
+        generation++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void work() {
+        int seen = 0;
+        while (true) {
+            while (generation == seen) {
+                LockSupport.park(this);
+            }
+            if (closed) return;
+            seen = generation;
+            runClaimedBands();
+        }
+    }
+
+    // Takes bands until none are left. The last band finished wakes the caller.
+    private void runClaimedBands() {
+        int band;
+        while ((band = nextBand.getAndIncrement()) < bands) {
+            try {
+                work.run(band);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                if (finishedBands.incrementAndGet() == bands) {
+                    LockSupport.unpark(caller);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package Shooting;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// Screen-space glow. Everything that should glow is splatted as a disc into a
+// buffer a quarter of the window's size, the buffer is blurred with a
+// separable Gaussian and the result is stretched back to full size and laid
+// over the frame in one blit. This stands in for one radial gradient fill per
+// bubble. The two blur passes and the stretch are each split into bands of
+// rows shared out between the painting thread and the bloom's own parked
+// workers (BandWorkers), which run until close(). The stretch is done here
+// rather than by a scaled drawImage, which goes through a slow transform loop
+// that allocates. Only the box around what was added is blurred, stretched
+// and drawn.
+class Bloom {
+    static final int SCALE = 4;
+    private static final int RADIUS = 4;
+    private static final int DEFAULT_BANDS = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int ROWS = 0;
+    private static final int COLUMNS = 1;
+    private static final int STRETCH = 2;
+
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int width;
+    private final int height;
+    // Premultiplied ARGB throughout
+    private final int[] source;
+    private final int[] horizontal;
+    private final int[] blurred;
+    private final int[] pixels;
+    // For each window column and row, the buffer column or row to its upper
+    // left and how much, out of 256, of the next one along to mix in
+    private final int[] sampleX;
+    private final int[] weightX;
+    private final int[] sampleY;
+    private final int[] weightY;
+    private final BufferedImage image;
+    // Gaussian weights summing to 256, centre first
+    private final int[] kernel = new int[RADIUS + 1];
+    // One band per thread, each with its own scratch row for the stretch
+    private final int bands;
+    private final int[][] scratchLines;
+    private final BandWorkers workers;
+    // The pass the workers are running
+    private int pass;
+
+    // Buffer pixels a splat touched, inclusive; empty when left > right
+    private int left;
+    private int right;
+    private int top;
+    private int bottom;
+    // Buffer rows and columns the blur passes cover, and window rows and
+    // columns the stretch and blit cover, for the current frame
+    private int firstRow, lastRow, firstColumn, lastColumn;
+    private int firstLine, lastLine, firstPixel, lastPixel;
+
+    Bloom(int windowWidth, int windowHeight) {
+        this(windowWidth, windowHeight, DEFAULT_BANDS);
+    }
+
+    Bloom(int windowWidth, int windowHeight, int bands) {
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        width = (windowWidth + SCALE - 1) / SCALE;
+        height = (windowHeight + SCALE - 1) / SCALE;
+        source = new int[width * height];
+        horizontal = new int[width * height];
+        blurred = new int[width * height];
+        image = new BufferedImage(windowWidth, windowHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        sampleX = new int[windowWidth];
+        weightX = new int[windowWidth];
+        sampleY = new int[windowHeight];
+        weightY = new int[windowHeight];
+        samples(sampleX, weightX, width);
+        samples(sampleY, weightY, height);
+
+        double sigma = RADIUS / 2.0;
+        double[] weights = new double[RADIUS + 1];
+        double total = 0;
+        for (int i = 0; i <= RADIUS; i++) {
+            weights[i] = Math.exp(-i * i / (2 * sigma * sigma));
+            total += i == 0 ? weights[i] : 2 * weights[i];
+        }
+        int sum = 0;
+        for (int i = 1; i <= RADIUS; i++) {
+            kernel[i] = (int) Math.round(256 * weights[i] / total);
+            sum += 2 * kernel[i];
+        }
+        kernel[0] = 256 - sum;
+
+        this.bands = Math.max(1, bands);
+        scratchLines = new int[this.bands][width];
+        workers = new BandWorkers("bloom-worker", this.bands, this.bands, this::runBand);
+        clear();
+    }
+
+    // Bilinear sample positions for stretching size buffer pixels by SCALE
+    private static void samples(int[] sample, int[] weight, int size) {
+        for (int i = 0; i < sample.length; i++) {
+            float at = Math.max(0, (i + 0.5f) / SCALE - 0.5f);
+            sample[i] = Math.min(size - 1, (int) at);
+            weight[i] = sample[i] + 1 < size ? (int) ((at - sample[i]) * 256) : 0;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(source, 0);
+        left = width;
+        right = -1;
+        top = height;
+        bottom = -1;
+    }
+
+    // A glowing disc of the given diameter whose bounding box starts at (x, y)
+    // in window coordinates. Overlapping discs keep the brighter channel rather
+    // than adding up, so dense clusters don't wash out to white.
+    void add(int x, int y, int diameter, Color color, int alpha) {
+        float centerX = (x + diameter / 2f) / SCALE;
+        float centerY = (y + diameter / 2f) / SCALE;
+        float radius = diameter / 2f / SCALE;
+        int r = color.getRed() * alpha / 255;
+        int g = color.getGreen() * alpha / 255;
+        int b = color.getBlue() * alpha / 255;
+        int firstRow = Math.max(0, (int) (centerY - radius));
+        int lastRow = Math.min(height - 1, (int) (centerY + radius));
+        int firstCol = Math.max(0, (int) (centerX - radius));
+        int lastCol = Math.min(width - 1, (int) (centerX + radius));
+        if (firstRow > lastRow || firstCol > lastCol) return;
+        top = Math.min(top, firstRow);
+        bottom = Math.max(bottom, lastRow);
+        left = Math.min(left, firstCol);
+        right = Math.max(right, lastCol);
+        for (int row = firstRow; row <= lastRow; row++) {
+            float dy = row + 0.5f - centerY;
+            for (int col = firstCol; col <= lastCol; col++) {
+                float dx = col + 0.5f - centerX;
+                if (dx * dx + dy * dy > radius * radius) continue;
+                int i = row * width + col;
+                int dst = source[i];
+                source[i] = Math.max(alpha, dst >>> 24) << 24
+                            | Math.max(r, (dst >> 16) & 0xff) << 16
+                            | Math.max(g, (dst >> 8) & 0xff) << 8
+                            | Math.max(b, dst & 0xff);
+            }
+        }
+    }
+
+    // Blurs what was added since clear() and draws it stretched over the window
+    void draw(Graphics2D g2d) {
+        if (left > right) return;
+        // The glow reaches RADIUS past the splats. One more buffer pixel all
+        // round is blurred, to zero, for the stretch to sample beside the edge.
+        firstRow = Math.max(0, top - RADIUS - 1);
+        lastRow = Math.min(height, bottom + RADIUS + 2);
+        firstColumn = Math.max(0, left - RADIUS - 1);
+        lastColumn = Math.min(width, right + RADIUS + 2);
+        firstLine = Math.max(0, top - RADIUS) * SCALE;
+        lastLine = Math.min(windowHeight, (bottom + RADIUS + 1) * SCALE);
+        firstPixel = Math.max(0, left - RADIUS) * SCALE;
+        lastPixel = Math.min(windowWidth, (right + RADIUS + 1) * SCALE);
+
+        run(ROWS);
+        run(COLUMNS);
+        run(STRETCH);
+        g2d.drawImage(image, firstPixel, firstLine, lastPixel, lastLine,
+                      firstPixel, firstLine, lastPixel, lastLine, null);
+    }
+
+    // Stops the workers; the bloom cannot draw after this
+    void close() {
+        workers.close();
+    }
+
+    private void run(int pass) {
+        this.pass = pass;
+        workers.run();
+    }
+
+    private void runBand(int index) {
+        if (pass == STRETCH) {
+            int lines = lastLine - firstLine;
+            stretch(firstLine + lines * index / bands, firstLine + lines * (index + 1) / bands, scratchLines[index]);
+        } else {
+            int rows = lastRow - firstRow;
+            int first = firstRow + rows * index / bands;
+            int last = firstRow + rows * (index + 1) / bands;
+            if (pass == COLUMNS) {
+                blurColumns(first, last);
+            } else {
+                blurRows(first, last);
+            }
+        }
+    }
+
+    // Horizontal pass: source rows into horizontal
+    private void blurRows(int first, int last) {
+        for (int row = first; row < last; row++) {
+            int offset = row * width;
+            for (int col = firstColumn; col < lastColumn; col++) {
+                int a = 0, r = 0, g = 0, b = 0;
+                for (int k = -RADIUS; k <= RADIUS; k++) {
+                    int c = col + k;
+                    if (c < 0 || c >= width) continue;
+                    int pixel = source[offset + c];
+                    if (pixel == 0) continue;
+                    int weight = kernel[Math.abs(k)];
+                    a += (pixel >>> 24) * weight;
+                    r += ((pixel >> 16) & 0xff) * weight;
+                    g += ((pixel >> 8) & 0xff) * weight;
+                    b += (pixel & 0xff) * weight;
+                }
+                horizontal[offset + col] = (a >> 8) << 24 | (r >> 8) << 16 | (g >> 8) << 8 | (b >> 8);
+            }
+        }
+    }
+
+    // Vertical pass: horizontal columns into blurred, still written row by row
+    private void blurColumns(int first, int last) {
+        for (int row = first; row < last; row++) {
+            int offset = row * width;
+            for (int col = firstColumn; col < lastColumn; col++) {
+                int a = 0, r = 0, g = 0, b = 0;
+                for (int k = -RADIUS; k <= RADIUS; k++) {
+                    // Rows outside the box hold an older frame's blur
+                    int y = row + k;
+                    if (y < firstRow || y >= lastRow) continue;
+                    int pixel = horizontal[y * width + col];
+                    if (pixel == 0) continue;
+                    int weight = kernel[Math.abs(k)];
+                    a += (pixel >>> 24) * weight;
+                    r += ((pixel >> 16) & 0xff) * weight;
+                    g += ((pixel >> 8) & 0xff) * weight;
+                    b += (pixel & 0xff) * weight;
+                }
+                blurred[offset + col] = (a >> 8) << 24 | (r >> 8) << 16 | (g >> 8) << 8 | (b >> 8);
+            }
+        }
+    }
+
+    // Blurred stretched to window rows first to last of the image: each row
+    // is mixed from the two buffer rows either side into line, then widened
+    private void stretch(int first, int last, int[] line) {
+        for (int row = first; row < last; row++) {
+            int above = sampleY[row] * width;
+            int below = weightY[row] == 0 ? above : above + width;
+            int down = weightY[row];
+            for (int col = firstColumn; col < lastColumn; col++) {
+                line[col] = mix(blurred[above + col], blurred[below + col], down);
+            }
+            int offset = row * windowWidth;
+            for (int col = firstPixel; col < lastPixel; col++) {
+                int left = sampleX[col];
+                int right = weightX[col] == 0 ? left : left + 1;
+                pixels[offset + col] = mix(line[left], line[right], weightX[col]);
+            }
+        }
+    }
+
+    // Each channel of a moved weight/256 of the way to b
+    private static int mix(int a, int b, int weight) {
+        if (a == b) return a;
+        int keep = 256 - weight;
+        int alphaGreen = (((a >>> 8) & 0xff00ff) * keep + ((b >>> 8) & 0xff00ff) * weight) & 0xff00ff00;
+        int redBlue = ((a & 0xff00ff) * keep + (b & 0xff00ff) * weight) >>> 8 & 0xff00ff;
+        return alphaGreen | redBlue;
+    }
+}
@@ -0,0 +1,50 @@
+package Shooting;
+
+import java.util.Arrays;
+
+// Which board cells changed when, so a board can be sent as the cells that
+// changed since a version the receiver already has rather than whole. The
+// game marks every cell it writes: a shot attaching, bubbles popping or
+// dropping, and all of them when a layout is loaded. Marks carry the version
+// being built; seal() closes it, and a version closed with no marks in it is
+// not a new version. Versions start at 1, so 0 stands for having nothing.
+// Only the game's own thread marks, seals and reads.
+final class BoardChanges {
+    // For each cell the last version that changed it
+    private final int[] changedAt;
+    private int version;
+    private boolean pending;
+
+    BoardChanges(int cells) {
+        changedAt = new int[cells];
+    }
+
+    void mark(int cell) {
+        changedAt[cell] = version + 1;
+        pending = true;
+    }
+
+    void markAll() {
+        Arrays.fill(changedAt, version + 1);
+        pending = true;
+    }
+
+    // Closes the version being built, if anything changed in it, and returns
+    // the latest version
+    int seal() {
+        if (pending) {
+            version++;
+            pending = false;
+        }
+        return version;
+    }
+
+    int version() {
+        return version;
+    }
+
+    // True when the cell changed after the given version
+    boolean changedSince(int cell, int since) {
+        return changedAt[cell] > since;
+    }
+}
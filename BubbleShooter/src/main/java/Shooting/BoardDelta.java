@@ -0,0 +1,203 @@
+package Shooting;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+// A game's board streamed to spectators as changes. Each update carries only
+// the cells that changed since the version the spectator last acknowledged
+// (BoardChanges), with their current contents, so an update that goes missing
+// costs nothing but a larger next one: the spectator keeps acknowledging the
+// version it has and the cells since then are sent again. A spectator that
+// has nothing acknowledges 0 and gets every cell. Shots in flight are sent
+// whole in every update, since they move every tick.
+//
+// An update, with varints unsigned LEB128:
+//   varint version, varint base version, varint level, varint score
+//   varint changed cell count << 1, low bit set when the cells are a bitset
+//   the changed cells: a bitset over the board, or each index as a varint
+//     gap from the one before, whichever is smaller
+//   their contents, 0 or palette index + 1, two to a byte, low nibble first
+//   varint shot count, then per shot varint x, varint y and a colour byte
+final class BoardDelta {
+    private BoardDelta() {
+    }
+
+    // Writes the updates for one game. Encoding never allocates; the buffer
+    // needs room for maxBytes.
+    static final class Encoder {
+        private final BubbleShooterGame game;
+        private final int[] changed;
+
+        Encoder(BubbleShooterGame game) {
+            this.game = game;
+            changed = new int[game.board.cells.length];
+        }
+
+        // The largest update: every cell as a bitset plus a few shots
+        int maxBytes() {
+            int cells = changed.length;
+            return 5 * 5 + (cells + 7) / 8 + (cells + 1) / 2 + 5 + 16 * 11;
+        }
+
+        // Writes the update taking a spectator at the acked version to the
+        // game as it is now, and returns the version it brings them to.
+        // Only call it from the game's thread, between ticks.
+        int encode(int acked, ByteBuffer out) {
+            BoardChanges changes = game.changes;
+            int version = changes.seal();
+            // A version from the future is a spectator that is confused; start it over
+            int base = acked >= 0 && acked <= version ? acked : 0;
+            byte[] cells = game.board.cells;
+
+            int count = 0;
+            int gapBytes = 0;
+            int previous = -1;
+            // Nothing can have changed since the latest version, so a spectator
+            // that has it, the usual case, needs no scan
+            for (int cell = base < version ? 0 : cells.length; cell < cells.length; cell++) {
+                if (changes.changedSince(cell, base)) {
+                    changed[count++] = cell;
+                    gapBytes += varintSize(cell - previous - 1);
+                    previous = cell;
+                }
+            }
+            int bitsetBytes = (cells.length + 7) / 8;
+            boolean bitset = bitsetBytes < gapBytes;
+
+            putVarint(out, version);
+            putVarint(out, base);
+            putVarint(out, game.level);
+            putVarint(out, game.score());
+            putVarint(out, count << 1 | (bitset ? 1 : 0));
+            if (bitset) {
+                int start = out.position();
+                for (int i = 0; i < bitsetBytes; i++) {
+                    out.put(start + i, (byte) 0);
+                }
+                for (int i = 0; i < count; i++) {
+                    int cell = changed[i];
+                    out.put(start + cell / 8, (byte) (out.get(start + cell / 8) | 1 << (cell & 7)));
+                }
+                out.position(start + bitsetBytes);
+            } else {
+                previous = -1;
+                for (int i = 0; i < count; i++) {
+                    putVarint(out, changed[i] - previous - 1);
+                    previous = changed[i];
+                }
+            }
+            for (int i = 0; i < count; i += 2) {
+                int low = cells[changed[i]];
+                int high = i + 1 < count ? cells[changed[i + 1]] : 0;
+                out.put((byte) (high << 4 | low));
+            }
+
+            List<Bubble> shots = game.shootingBubbles;
+            putVarint(out, shots.size());
+            for (int i = 0; i < shots.size(); i++) {
+                Bubble shot = shots.get(i);
+                putVarint(out, shot.x);
+                putVarint(out, shot.y);
+                out.put((byte) shot.color);
+            }
+            return version;
+        }
+    }
+
+    // A spectator's copy of the game, rebuilt from updates
+    static final class Decoder {
+        final Level board;
+        int version;
+        int level;
+        int score;
+        int shotCount;
+        int[] shotX = new int[1];
+        int[] shotY = new int[1];
+        int[] shotColor = new int[1];
+        private final int[] changed;
+
+        Decoder(int rows, int cols) {
+            board = new Level(rows, cols, 0);
+            changed = new int[rows * cols];
+        }
+
+        // Applies one update and returns true, or returns false and leaves
+        // everything as it was when the update is older than what this copy
+        // has, or builds on a version it never had
+        boolean apply(ByteBuffer in) {
+            int updateVersion = getVarint(in);
+            int base = getVarint(in);
+            if (updateVersion < version || base > version) return false;
+
+            version = updateVersion;
+            level = getVarint(in);
+            score = getVarint(in);
+            int header = getVarint(in);
+            int count = header >>> 1;
+            byte[] cells = board.cells;
+            if ((header & 1) != 0) {
+                int start = in.position();
+                int found = 0;
+                for (int cell = 0; cell < cells.length; cell++) {
+                    if ((in.get(start + cell / 8) & 1 << (cell & 7)) != 0) {
+                        changed[found++] = cell;
+                    }
+                }
+                in.position(start + (cells.length + 7) / 8);
+            } else {
+                int previous = -1;
+                for (int i = 0; i < count; i++) {
+                    previous += getVarint(in) + 1;
+                    changed[i] = previous;
+                }
+            }
+            for (int i = 0; i < count; i += 2) {
+                int packed = in.get();
+                cells[changed[i]] = (byte) (packed & 0x0F);
+                if (i + 1 < count) {
+                    cells[changed[i + 1]] = (byte) (packed >> 4 & 0x0F);
+                }
+            }
+
+            shotCount = getVarint(in);
+            if (shotCount > shotX.length) {
+                shotX = Arrays.copyOf(shotX, shotCount);
+                shotY = Arrays.copyOf(shotY, shotCount);
+                shotColor = Arrays.copyOf(shotColor, shotCount);
+            }
+            for (int i = 0; i < shotCount; i++) {
+                shotX[i] = getVarint(in);
+                shotY[i] = getVarint(in);
+                shotColor[i] = in.get();
+            }
+            return true;
+        }
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,144 @@
+package Shooting;
+
+// Bounded undo/redo history of the board, one entry per shot.
+// Board rows are kept as immutable byte arrays shared between the live row
+// table and every entry that refers to them; a shot copies only the rows it
+// changed (copy-on-write), and undo/redo swap just those rows back in.
+// When the ring is full the oldest shot is forgotten.
+class BoardHistory {
+    // Everything besides the board that an undo has to put back
+    static final class State {
+        final int level;
+        final int score;
+        final long seed;
+        final int nextColor;
+        final int previewColor;
+
+        State(int level, int score, long seed, int nextColor, int previewColor) {
+            this.level = level;
+            this.score = score;
+            this.seed = seed;
+            this.nextColor = nextColor;
+            this.previewColor = previewColor;
+        }
+    }
+
+    private static final class Entry {
+        int[] changedRows;
+        byte[][] before;
+        byte[][] after;
+        State stateBefore;
+        State stateAfter;
+    }
+
+    private final int rows;
+    private final int cols;
+    private final byte[][] current;
+    private State currentState;
+    private final Entry[] entries;
+    private int oldest;   // ring index of the oldest entry
+    private int count;    // entries that can be undone or redone
+    private int position; // entries currently applied; the rest can be redone
+    private final int[] changedScratch;
+
+    BoardHistory(int rows, int cols, int capacity) {
+        this.rows = rows;
+        this.cols = cols;
+        this.current = new byte[rows][];
+        this.entries = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+        }
+        this.changedScratch = new int[rows];
+    }
+
+    // Starts a fresh history at the given board, e.g. when a level begins
+    void reset(Level board, State state) {
+        for (int row = 0; row < rows; row++) {
+            current[row] = copyRow(board, row);
+        }
+        currentState = state;
+        count = 0;
+        position = 0;
+    }
+
+    // Records the board after a shot. Rows equal to the previous board are shared.
+    void record(Level board, State state) {
+        int changed = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!rowEquals(board, row, current[row])) {
+                changedScratch[changed++] = row;
+            }
+        }
+
+        // A new shot after some undos drops the shots that could have been redone
+        count = position;
+        if (count == entries.length) {
+            oldest = (oldest + 1) % entries.length;
+            count--;
+        }
+        Entry entry = entries[(oldest + count) % entries.length];
+        entry.changedRows = new int[changed];
+        entry.before = new byte[changed][];
+        entry.after = new byte[changed][];
+        for (int i = 0; i < changed; i++) {
+            int row = changedScratch[i];
+            entry.changedRows[i] = row;
+            entry.before[i] = current[row];
+            entry.after[i] = copyRow(board, row);
+            current[row] = entry.after[i];
+        }
+        entry.stateBefore = currentState;
+        entry.stateAfter = state;
+        currentState = state;
+        count++;
+        position = count;
+    }
+
+    boolean canUndo() {
+        return position > 0;
+    }
+
+    boolean canRedo() {
+        return position < count;
+    }
+
+    // Steps back one shot, writing only the rows it changed into board
+    State undo(Level board) {
+        Entry entry = entries[(oldest + position - 1) % entries.length];
+        position--;
+        apply(entry.changedRows, entry.before, board);
+        currentState = entry.stateBefore;
+        return currentState;
+    }
+
+    State redo(Level board) {
+        Entry entry = entries[(oldest + position) % entries.length];
+        position++;
+        apply(entry.changedRows, entry.after, board);
+        currentState = entry.stateAfter;
+        return currentState;
+    }
+
+    private void apply(int[] changedRows, byte[][] rowData, Level board) {
+        for (int i = 0; i < changedRows.length; i++) {
+            int row = changedRows[i];
+            current[row] = rowData[i];
+            System.arraycopy(rowData[i], 0, board.cells, row * cols, cols);
+        }
+    }
+
+    private byte[] copyRow(Level board, int row) {
+        byte[] copy = new byte[cols];
+        System.arraycopy(board.cells, row * cols, copy, 0, cols);
+        return copy;
+    }
+
+    private boolean rowEquals(Level board, int row, byte[] rowData) {
+        int offset = row * cols;
+        for (int col = 0; col < cols; col++) {
+            if (board.cells[offset + col] != rowData[col]) return false;
+        }
+        return true;
+    }
+}
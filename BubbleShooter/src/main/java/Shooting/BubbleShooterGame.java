@@ -3,48 +3,111 @@ package Shooting;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class BubbleShooterGame extends JPanel implements ActionListener, MouseListener, MouseMotionListener {
-    private static final int WINDOW_WIDTH = 900;
-    private static final int WINDOW_HEIGHT = 700;
-    private static final int BUBBLE_SIZE = 35;
-    private static final int ROWS = 8;
-    private static final int COLS = 15;
-    private static final int SHOOTER_Y = WINDOW_HEIGHT - 120;
-    private static final int UI_HEIGHT = 80;
+    static final int WINDOW_WIDTH = 900;
+    static final int WINDOW_HEIGHT = 700;
+    static final int BUBBLE_SIZE = 35;
+    static final int ROWS = 8;
+    static final int COLS = 15;
+    static final int SHOOTER_Y = WINDOW_HEIGHT - 120;
+    static final int UI_HEIGHT = 80;
+    // Grid cells bubbles can attach to across the whole play area
+    static final int BOARD_ROWS = 16;
+    static final int BOARD_COLS = 23;
+    // Shots that can be undone in practice mode (-Dbubbleshooter.practice=true)
+    private static final int HISTORY_SIZE = 64;
+    static final String PRACTICE_PROPERTY = "bubbleshooter.practice";
+    static final String PERFORMANCE_HUD_PROPERTY = "bubbleshooter.perfhud";
+    // Number of ambient background particles (-Dbubbleshooter.particles=100000)
+    static final String PARTICLES_PROPERTY = "bubbleshooter.particles";
+    private static final int DEFAULT_PARTICLES = 50;
+    // legacy, cached or bloom (-Dbubbleshooter.renderer=bloom)
+    static final String RENDERER_PROPERTY = "bubbleshooter.renderer";
     
     private Timer gameTimer;
-    private List<Bubble> bubbles;
-    private List<Bubble> shootingBubbles;
-    private Bubble nextBubble;
+    // The bubbles on the board, one byte per cell; only shots in flight and the
+    // bubbles waiting at the shooter are objects
+    final Level board = new Level(BOARD_ROWS, BOARD_COLS, 0);
+    // Every write to the board, by version, for streaming it as changes
+    final BoardChanges changes = new BoardChanges(BOARD_ROWS * BOARD_COLS);
+    List<Bubble> shootingBubbles;
+    Bubble nextBubble;
     private Bubble previewBubble;
     private Point mousePosition;
     private int score;
-    private int level;
+    int level;
     private int bubblesRemaining;
-    private boolean gameOver;
-    private boolean gameWon;
+    boolean gameOver;
+    boolean gameWon;
     private Random random;
+    // Cosmetic effects draw from their own RNG so they never shift the bubble sequence
+    private Random effectsRandom;
     private int animationFrame;
-    private List<FloatingScore> floatingScores;
-    private List<BackgroundParticle> backgroundParticles;
-    
-    // Enhanced color palette
-    private Color[] bubbleColors = {
-        new Color(255, 87, 90),   // Red
-        new Color(87, 165, 255),  // Blue  
-        new Color(87, 255, 87),   // Green
-        new Color(255, 215, 87),  // Yellow
-        new Color(255, 140, 87),  // Orange
-        new Color(255, 87, 245),  // Pink
-        new Color(87, 255, 255),  // Cyan
-        new Color(200, 87, 255)   // Purple
-    };
+    private ScorePopups scorePopups;
+    private ParticleField particles;
+    private EffectPool effects;
+    private LevelPackReader levelPack;
+    private Level packLevel;
+    private LevelPrefetcher prefetcher;
+    private SaveFile saveFile;
+    // Where the ends of levels and games are kept; null when there is none
+    private Leaderboard leaderboard;
+    private Level preparedLevel;
+    // Set once the current level's win has been published; only a new level
+    // clears it, so nothing that reloads a board can publish the win again
+    private boolean winPublished;
+    private int levelColorCount;
+    final FrameTimings timings = new FrameTimings();
+    RenderMode renderMode = RenderMode.valueOf(
+            System.getProperty(RENDERER_PROPERTY, "cached").toUpperCase(Locale.ROOT));
+    // Boards settled so far (shots landed, levels started, saves resumed); frames
+    // where this changes do one-off work and are not steady-state frames
+    int settledBoards;
+    // Pinned at full quality unless the game is interactive
+    final QualityGovernor quality = new QualityGovernor();
+    final PerformanceOverlay performanceOverlay = new PerformanceOverlay(quality);
+    private final int[] neighbourCells = new int[6];
+    // Scratch for flood fills over the board: cells in the order reached, and which were
+    private final int[] floodCells = new int[BOARD_ROWS * BOARD_COLS];
+    private final boolean[] reachedCells = new boolean[BOARD_ROWS * BOARD_COLS];
+    private final BoardHistory history = new BoardHistory(BOARD_ROWS, BOARD_COLS, HISTORY_SIZE);
+    private final Level historyBoard = new Level(BOARD_ROWS, BOARD_COLS, 0);
+    // Mouse and key input from the event dispatch thread, applied by tick()
+    final InputQueue input = new InputQueue();
+    // Scoring and level events for subscribers, delivered off the game thread
+    final GameEventBus events = new GameEventBus();
+    private final InputQueue.Handler inputHandler = this::applyInput;
+    // Flight recorder events in progress; null unless a recording enables them
+    private GameEvents.Frame frameEvent;
+    private GameEvents.Shot shotEvent;
+    private int shotTicks;
+    // Where the last shot landed and what it cleared, for servers and tools
+    // that resolve shots themselves; the row is -1 until the shot lands
+    int landedRow = -1;
+    int landedCol = -1;
+    int poppedBubbles;
+    int droppedBubbles;
     
     // UI Colors
     private Color primaryColor = new Color(45, 52, 70);
@@ -54,68 +117,389 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
     private Color warningColor = new Color(255, 215, 87);
     private Color dangerColor = new Color(255, 87, 87);
     
+    // Pre-rendered images and preallocated paint state for RenderMode.CACHED.
+    // Built on the first cached frame, so games that never paint (the level bot)
+    // don't pay for them. The images come in a set for the viewport's scale,
+    // shared by every game in the JVM that draws at that scale.
+    private static final int MAX_TRAJECTORY = 100;
+    // The logical frame's place in the panel, which may be resized or on a scaled screen
+    private final Viewport viewport = new Viewport(WINDOW_WIDTH, WINDOW_HEIGHT);
+    private Assets assets;
+    // A set the worker finished for a new scale, until a frame picks it up
+    private final AtomicReference<Assets> rebuiltAssets = new AtomicReference<>();
+    // The scale the game wants a set for; 0 once the game is closed. The worker
+    // skips a build whose scale is no longer the one wanted.
+    private volatile float requestedScale;
+    private ExecutorService assetBuilder;
+    private TiledRenderer tiles;
+    // What the tile workers draw this frame with, set before each tiled pass
+    private Assets bandAssets;
+    private Surfaces bandSurfaces;
+    private BufferedImage[] bandBodies;
+    private AlphaComposite bandRingFade;
+    private int bandShade;
+    // This game's own drawing surfaces at the scale of its sprites
+    private Surfaces surfaces;
+    private final int[] trajectoryX = new int[MAX_TRAJECTORY];
+    private final int[] trajectoryY = new int[MAX_TRAJECTORY];
+    // Reused between ticks so updating shots allocates nothing
+    private final List<Bubble> landedShots = new ArrayList<>();
+    
     public BubbleShooterGame() {
+        this(new Random(), true);
+    }
+    
+    // Non-interactive games (level bot, tools) get no listeners and no timer
+    // and are driven by calling updateGame() directly.
+    BubbleShooterGame(Random random, boolean interactive) {
+        this(random, interactive, interactive ? LevelPackReader.openDefault() : null);
+    }
+    
+    // A non-interactive game playing the levels of a pack other games may share,
+    // or random boards when levelPack is null
+    BubbleShooterGame(Random random, LevelPackReader levelPack) {
+        this(random, false, levelPack);
+    }
+    
+    private BubbleShooterGame(Random random, boolean interactive, LevelPackReader levelPack) {
         setPreferredSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
         setBackground(new Color(20, 25, 35));
         setFocusable(true);
         
-        addMouseListener(this);
-        addMouseMotionListener(this);
-        
-        random = new Random();
+        this.random = random;
+        this.effectsRandom = new Random(random.nextLong());
+        // Falling bubbles bounce off the same walls as shots and vanish at the window's edge
+        this.effects = new EffectPool(20, WINDOW_WIDTH - BUBBLE_SIZE - 20,
+                                      WINDOW_HEIGHT - BUBBLE_SIZE - BUBBLE_SPRITE_MARGIN, effectsRandom);
+        this.scorePopups = new ScorePopups(accentColor, successColor);
+        // Reads go into this game's own Level, so the pack itself is never written
+        this.levelPack = levelPack;
+        if (levelPack != null) {
+            packLevel = new Level(levelPack.rows, levelPack.cols, 0);
+        }
+        if (interactive) {
+            prefetcher = new LevelPrefetcher(levelPack);
+        }
         initializeGame();
         
-        gameTimer = new Timer(16, this); // ~60 FPS
-        gameTimer.start();
+        if (interactive) {
+            // Opened only now so the fresh game above does not overwrite the save
+            saveFile = SaveFile.openDefault();
+            resume();
+            leaderboard = Leaderboard.openDefault();
+            if (leaderboard != null) {
+                events.subscribe(leaderboard.subscriber(0));
+            }
+            
+            addMouseListener(this);
+            addMouseMotionListener(this);
+            if (Boolean.getBoolean(PRACTICE_PROPERTY)) {
+                bindUndoKeys();
+            }
+            bindPerformanceKey();
+            performanceOverlay.visible = Boolean.getBoolean(PERFORMANCE_HUD_PROPERTY);
+            quality.configure(System.getProperty(QualityGovernor.QUALITY_PROPERTY, "auto"));
+            applyQuality();
+            
+            gameTimer = new Timer(16, this); // ~60 FPS
+            gameTimer.start();
+        }
     }
     
     private void initializeGame() {
-        bubbles = new ArrayList<>();
         shootingBubbles = new ArrayList<>();
-        floatingScores = new ArrayList<>();
-        backgroundParticles = new ArrayList<>();
         mousePosition = new Point(WINDOW_WIDTH / 2, WINDOW_HEIGHT / 2);
         score = 0;
         level = 1;
+        animationFrame = 0;
+        
+        // Background particles carry on across restarts
+        if (particles == null) {
+            setParticleCount(Integer.getInteger(PARTICLES_PROPERTY, DEFAULT_PARTICLES));
+        }
+        
+        startLevel();
+    }
+    
+    // Sets up the board for the current level, keeping score and level.
+    // A layout prepared in the background is used when it is ready; otherwise
+    // the level is built on the spot. The level after it is then prefetched.
+    private void startLevel() {
+        Level layout = preparedLevel;
+        preparedLevel = null;
+        if (layout == null && prefetcher != null) {
+            layout = prefetcher.take(level);
+        }
+        startLevel(layout != null ? layout : layoutFor(level));
+        
+        if (prefetcher != null) {
+            prefetcher.prefetch(level + 1, random.nextLong());
+        }
+    }
+    
+    // Plays the given layout as the current level, starting a fresh undo history
+    void startLevel(Level layout) {
+        GameEvents.LevelStart event = new GameEvents.LevelStart();
+        event.begin();
         gameOver = false;
         gameWon = false;
-        animationFrame = 0;
+        winPublished = false;
+        scorePopups.clear();
+        effects.clear();
+        loadLevel(layout);
+        checkpoint(true);
+        
+        event.level = level;
+        event.bubbles = bubblesRemaining;
+        event.colors = levelColorCount;
+        event.commit();
+        events.levelStarted(level, score);
+    }
+    
+    // Next layout from the level pack when one is loaded and still has levels,
+    // otherwise a random board
+    private Level layoutFor(int levelNumber) {
+        if (levelPack != null && levelNumber <= levelPack.size()) {
+            try {
+                levelPack.read(levelNumber - 1, packLevel);
+                return packLevel;
+            } catch (IOException e) {
+                System.err.println("Skipping level " + levelNumber + ": " + e.getMessage());
+            }
+        }
+        return Level.random(random, ROWS, COLS, colorsForLevel(levelNumber));
+    }
+    
+    // Number of bubble colours in play at a given level
+    static int colorsForLevel(int levelNumber) {
+        return Math.min(4 + levelNumber, 8);
+    }
+    
+    int colorCount() {
+        return levelColorCount;
+    }
+    
+    int score() {
+        return score;
+    }
+    
+    // Colour of the bubble waiting behind the loaded one
+    int previewColor() {
+        return previewBubble.color;
+    }
+    
+    // Scale of the sprite set the game draws with, 0 before the first cached frame
+    float spriteScale() {
+        Assets current = assets;
+        return current == null ? 0 : current.scale;
+    }
+    
+    // Pixel memory of the sprite sets the games in the JVM are using
+    static long sharedAssetBytes() {
+        return Assets.sharedBytes();
+    }
+    
+    // Captures the game between shots. The RNG is reseeded with a fresh seed that
+    // goes into the snapshot, so a resumed game deals the same bubbles.
+    GameSnapshot snapshot() {
+        long seed = random.nextLong();
+        random.setSeed(seed);
+        
+        Level copy = new Level(BOARD_ROWS, BOARD_COLS, levelColorCount);
+        System.arraycopy(board.cells, 0, copy.cells, 0, copy.cells.length);
+        return new GameSnapshot(level, score, seed, nextBubble.color, previewBubble.color, copy);
+    }
+    
+    void restore(GameSnapshot snapshot) {
+        preparedLevel = null;
+        loadState(snapshot.board, snapshot.level, snapshot.score, snapshot.seed,
+                  snapshot.nextColor, snapshot.previewColor);
+        checkpoint(true);
+        
+        if (prefetcher != null) {
+            prefetcher.prefetch(level + 1, random.nextLong());
+        }
+    }
+    
+    private void loadState(Level board, int level, int score, long seed, int nextColor, int previewColor) {
+        this.level = level;
+        this.score = score;
+        gameOver = false;
+        gameWon = false;
+        scorePopups.clear();
         
-        // Create background particles
-        for (int i = 0; i < 50; i++) {
-            backgroundParticles.add(new BackgroundParticle());
-        }
-        
-        // Create initial bubble grid with better distribution
-        bubblesRemaining = 0;
-        for (int row = 0; row < ROWS / 2; row++) {
-            for (int col = 0; col < COLS; col++) {
-                if (random.nextDouble() < 0.75) { // 75% chance of bubble
-                    int x = col * BUBBLE_SIZE + (row % 2) * (BUBBLE_SIZE / 2) + BUBBLE_SIZE;
-                    int y = row * BUBBLE_SIZE + BUBBLE_SIZE + UI_HEIGHT;
-                    Color color = bubbleColors[random.nextInt(Math.min(4 + level, bubbleColors.length))];
-                    bubbles.add(new Bubble(x, y, color));
-                    bubblesRemaining++;
-                }
+        loadLevel(board);
+        nextBubble.color = nextColor % Palette.BUBBLES.size();
+        previewBubble.color = previewColor % Palette.BUBBLES.size();
+        random.setSeed(seed);
+    }
+    
+    // Records the settled board for undo and autosave. Called after every shot,
+    // and with newLevel set whenever a level starts or a save is resumed.
+    private void checkpoint(boolean newLevel) {
+        settledBoards++;
+        GameSnapshot snapshot = snapshot();
+        BoardHistory.State state = new BoardHistory.State(snapshot.level, snapshot.score, snapshot.seed,
+                                                          snapshot.nextColor, snapshot.previewColor);
+        if (newLevel) {
+            history.reset(snapshot.board, state);
+        } else {
+            history.record(snapshot.board, state);
+        }
+        System.arraycopy(snapshot.board.cells, 0, historyBoard.cells, 0, historyBoard.cells.length);
+        historyBoard.colorCount = snapshot.board.colorCount;
+        
+        if (saveFile != null) {
+            saveFile.saveAsync(snapshot.encode());
+        }
+    }
+    
+    // Steps back one shot; only allowed while no bubble is in flight. A won
+    // level is over: stepping back into it would let it be won again, taking
+    // the next level's prefetched layout a second time.
+    boolean undo() {
+        if (gameWon || !history.canUndo() || !shootingBubbles.isEmpty()) return false;
+        applyHistory(history.undo(historyBoard));
+        return true;
+    }
+    
+    boolean redo() {
+        if (gameWon || !history.canRedo() || !shootingBubbles.isEmpty()) return false;
+        applyHistory(history.redo(historyBoard));
+        return true;
+    }
+    
+    private void applyHistory(BoardHistory.State state) {
+        loadState(historyBoard, state.level, state.score, state.seed, state.nextColor, state.previewColor);
+        if (saveFile != null) {
+            saveFile.saveAsync(snapshot().encode());
+        }
+    }
+    
+    private void bindUndoKeys() {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("ctrl Z"), "undo");
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("ctrl Y"), "redo");
+        getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                input.offer(InputQueue.Command.UNDO, 0, 0);
+            }
+        });
+        getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                input.offer(InputQueue.Command.REDO, 0, 0);
+            }
+        });
+    }
+    
+    // F3 shows or hides the performance HUD
+    private void bindPerformanceKey() {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F3"), "performanceHud");
+        getActionMap().put("performanceHud", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                performanceOverlay.visible = !performanceOverlay.visible;
             }
+        });
+    }
+    
+    private void resume() {
+        try {
+            byte[] data = saveFile.load();
+            if (data != null) {
+                restore(GameSnapshot.decode(data));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not resume saved game: " + e.getMessage());
+        }
+    }
+    
+    // Replaces the board with the given layout and deals fresh shooter bubbles.
+    // Whatever of the layout lies outside the board is left off.
+    void loadLevel(Level layout) {
+        levelColorCount = Math.max(1, Math.min(layout.colorCount, Palette.BUBBLES.size()));
+        board.clearAll();
+        board.colorCount = levelColorCount;
+        shootingBubbles.clear();
+        int cols = Math.min(layout.cols, BOARD_COLS);
+        for (int row = 0; row < Math.min(layout.rows, BOARD_ROWS); row++) {
+            System.arraycopy(layout.cells, row * layout.cols, board.cells, row * BOARD_COLS, cols);
         }
+        changes.markAll();
+        bubblesRemaining = board.bubbleCount();
         
         // Create next and preview bubbles
         nextBubble = new Bubble(WINDOW_WIDTH / 2 - BUBBLE_SIZE / 2, SHOOTER_Y, 
-                               bubbleColors[random.nextInt(Math.min(4 + level, bubbleColors.length))]);
+                               random.nextInt(colorCount()));
         previewBubble = new Bubble(WINDOW_WIDTH / 2 + 80, SHOOTER_Y + 10, 
-                                  bubbleColors[random.nextInt(Math.min(4 + level, bubbleColors.length))]);
+                                  random.nextInt(colorCount()));
     }
     
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        long paintStart = System.nanoTime();
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        viewport.update(getWidth(), getHeight(), getGraphicsConfiguration());
+        if (renderMode == RenderMode.LEGACY) {
+            // The cached backdrop is opaque, so only the legacy path needs the panel
+            // cleared; JComponent does that on a fresh Graphics copy every frame
+            super.paintComponent(g);
+        } else if (viewport.hasBars()) {
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, getWidth(), getHeight());
+        }
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, quality.antialiasing()
+                             ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         
         animationFrame++;
+        // Switched away from the tiled or bloom renderer: its workers would only park
+        if (tiles != null && renderMode != RenderMode.TILED) {
+            tiles.close();
+            tiles = null;
+        }
+        if (surfaces != null && renderMode != RenderMode.BLOOM) {
+            surfaces.closeBloom();
+        }
+        
+        long phaseStart;
+        if (renderMode == RenderMode.LEGACY) {
+            if (!viewport.isIdentity()) {
+                g2d.transform(viewport.transform());
+            }
+            phaseStart = paintLegacy(g2d, paintStart);
+        } else {
+            phaseStart = paintCached(g2d, paintStart);
+        }
         
+        // Performance HUD shows the previous frame, as this one is still being timed
+        if (performanceOverlay.visible) {
+            float scale = renderMode == RenderMode.LEGACY ? 1 : assets.scale;
+            if (scale != 1) {
+                // Back from device pixels to logical ones
+                g2d.scale(scale, scale);
+            }
+            performanceOverlay.draw(g2d, scale);
+        }
+        long paintEnd = timings.mark(FrameTimings.Phase.OVERLAY, phaseStart);
+        timings.paintNanos = paintEnd - paintStart;
+        performanceOverlay.frameFinished(timings);
+        if (quality.frameFinished(timings.updateNanos + timings.paintNanos)) {
+            applyQuality();
+        }
+        
+        if (frameEvent != null) {
+            frameEvent.level = level;
+            frameEvent.updateTime = timings.updateNanos;
+            frameEvent.paintTime = timings.paintNanos;
+            frameEvent.commit();
+            frameEvent = null;
+        }
+    }
+    
+    // Draws the frame up to the overlays and returns the end of the last timed phase
+    private long paintLegacy(Graphics2D g2d, long paintStart) {
         // Draw animated background
         drawBackground(g2d);
         
@@ -123,13 +507,16 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         drawGameArea(g2d);
         
         // Draw background particles
-        for (BackgroundParticle particle : backgroundParticles) {
-            particle.draw(g2d);
-        }
+        particles.drawShapes(g2d);
+        long phaseStart = timings.mark(FrameTimings.Phase.BACKGROUND, paintStart);
         
         // Draw grid bubbles with enhanced effects
-        for (Bubble bubble : bubbles) {
-            drawEnhancedBubble(g2d, bubble);
+        for (int row = 0; row < BOARD_ROWS; row++) {
+            for (int col = 0; col < BOARD_COLS; col++) {
+                if (!board.isEmpty(row, col)) {
+                    drawEnhancedBubble(g2d, Level.cellX(row, col), Level.cellY(row), board.get(row, col));
+                }
+            }
         }
         
         // Draw shooting bubbles
@@ -137,10 +524,12 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
             drawEnhancedBubble(g2d, bubble);
         }
         
+        // Draw pop bursts and falling bubbles
+        effects.drawShapes(g2d, Palette.BUBBLES, quality.glows());
+        
         // Draw floating scores
-        for (FloatingScore floatingScore : floatingScores) {
-            floatingScore.draw(g2d);
-        }
+        scorePopups.drawText(g2d);
+        phaseStart = timings.mark(FrameTimings.Phase.GRID, phaseStart);
         
         // Draw enhanced UI
         drawEnhancedUI(g2d);
@@ -157,19 +546,708 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         if (previewBubble != null) {
             drawPreviewBubble(g2d, previewBubble);
         }
+        phaseStart = timings.mark(FrameTimings.Phase.HUD, phaseStart);
         
         // Draw enhanced aiming line
         drawAimingLine(g2d);
+        phaseStart = timings.mark(FrameTimings.Phase.AIMING, phaseStart);
         
         // Draw game over/won screen
         if (gameOver || gameWon) {
             drawGameEndScreen(g2d);
         }
+        return phaseStart;
+    }
+    
+    // Same frame as paintLegacy, composed from pre-rendered sprites, solid fills,
+    // lines and glyphs. None of these allocate, so a steady frame creates no garbage.
+    // Indexed loops avoid iterator allocation where escape analysis gives up.
+    // Sprites are blitted in device pixels: a blit through a scaling transform
+    // takes a slower path that allocates, so positions are scaled here instead.
+    private long paintCached(Graphics2D g2d, long paintStart) {
+        Assets assets = currentAssets();
+        Surfaces surfaces = surfaces(assets);
+        toDevicePixels(g2d, assets);
+        scorePopups.setScale(assets.scale);
+        scorePopups.prepare();
+        
+        // The border pulse fades a single ring, which also keeps the composite
+        // blit hot for the rarer floating scores
+        AlphaComposite ringFade = assets.fades[Math.round(255 * borderAlpha())];
+        boolean glows = quality.glows();
+        boolean bloomPass = renderMode == RenderMode.BLOOM;
+        BufferedImage[] bodies = bloomPass || !glows ? assets.bubbleCores : assets.bubbleSprites;
+        int shade = Math.round(255 * (1 - backgroundWave()));
+        
+        Graphics2D screen = g2d;
+        long phaseStart;
+        if (renderMode == RenderMode.TILED) {
+            // The rest of the frame goes into the tiles' image too, which is
+            // blitted to the screen at the end. The bands paint background and
+            // grid together, so their time all counts as the grid's.
+            phaseStart = timings.mark(FrameTimings.Phase.BACKGROUND, paintStart);
+            TiledRenderer tiles = tiles();
+            g2d = tiles.begin(surfaces.background.getWidth(), surfaces.background.getHeight(), quality.antialiasing());
+            bandAssets = assets;
+            bandSurfaces = surfaces;
+            bandBodies = bodies;
+            bandRingFade = ringFade;
+            bandShade = shade;
+            tiles.paintBands();
+            phaseStart = timings.mark(FrameTimings.Phase.GRID, phaseStart);
+        } else {
+            // The backdrop, dimmed by the wave, and the particles are blended into one
+            // raster and blitted as a single opaque image. Particles pass under the
+            // game area border here rather than over it.
+            composeBackground(assets, surfaces, shade, 0, surfaces.background.getHeight());
+            particles.draw(surfaces.backgroundPixels, surfaces.background.getWidth(), surfaces.background.getHeight(),
+                           assets.scale);
+            g2d.drawImage(surfaces.background, 0, 0, null);
+            for (Layer edge : assets.gameAreaBorder) {
+                edge.draw(g2d);
+            }
+            phaseStart = timings.mark(FrameTimings.Phase.BACKGROUND, paintStart);
+            
+            if (bloomPass && glows) {
+                drawBloom(g2d, assets, surfaces);
+            }
+            drawBoardSprites(g2d, assets, 0, BOARD_ROWS, bodies, ringFade);
+            for (int i = 0; i < shootingBubbles.size(); i++) {
+                Bubble bubble = shootingBubbles.get(i);
+                drawBubbleSprite(g2d, assets, bubble.x, bubble.y, bubble.color, bodies, ringFade);
+            }
+            effects.draw(g2d, Palette.BUBBLES, bodies, BUBBLE_SPRITE_MARGIN, assets.scale);
+            scorePopups.draw(g2d, assets.fades);
+            phaseStart = timings.mark(FrameTimings.Phase.GRID, phaseStart);
+        }
+        
+        assets.uiPanel.draw(g2d);
+        assets.valueDigits[0].draw(g2d, UI_SECTION_X[0], 45, score);
+        assets.valueDigits[1].draw(g2d, UI_SECTION_X[1], 45, level);
+        assets.valueDigits[2].draw(g2d, UI_SECTION_X[2], 45, bubblesRemaining);
+        surfaces.progressBar().draw(g2d);
+        assets.shooterArea.draw(g2d);
+        
+        if (nextBubble != null) {
+            int pulseSize = shooterPulseSize();
+            int offset = (BUBBLE_SIZE - pulseSize) / 2;
+            int index = nextBubble.color;
+            if (glows && !bloomPass) {
+                assets.blit(g2d, assets.shooterGlows[index][pulseSize - SHOOTER_MIN_SIZE],
+                            nextBubble.x - SHOOTER_GLOW_MARGIN, nextBubble.y - SHOOTER_GLOW_MARGIN);
+            }
+            assets.blit(g2d, bodies[index], nextBubble.x + offset - BUBBLE_SPRITE_MARGIN,
+                        nextBubble.y + offset - BUBBLE_SPRITE_MARGIN);
+            g2d.setComposite(ringFade);
+            assets.blit(g2d, assets.borderRing, nextBubble.x + offset - RING_MARGIN, nextBubble.y + offset - RING_MARGIN);
+            g2d.setComposite(AlphaComposite.SrcOver);
+        }
+        if (previewBubble != null) {
+            assets.blit(g2d, assets.previewSprites[previewBubble.color],
+                        previewBubble.x - PREVIEW_MARGIN_X, previewBubble.y - PREVIEW_MARGIN_Y);
+        }
+        phaseStart = timings.mark(FrameTimings.Phase.HUD, phaseStart);
+        
+        if (nextBubble != null && !gameOver && !gameWon) {
+            int startX = nextBubble.x + BUBBLE_SIZE / 2;
+            int startY = nextBubble.y + BUBBLE_SIZE / 2;
+            int points = traceTrajectory(startX, startY, mousePosition.x, mousePosition.y, trajectoryX, trajectoryY);
+            if (points > 1) {
+                g2d.setStroke(assets.aimStroke);
+                for (int i = 0; i < points - 1; i++) {
+                    float alpha = 1.0f - (float) i / points;
+                    g2d.setColor(assets.accentShades[(int) (255 * alpha * 0.8)]);
+                    g2d.drawLine(assets.px(trajectoryX[i]), assets.px(trajectoryY[i]),
+                                 assets.px(trajectoryX[i + 1]), assets.px(trajectoryY[i + 1]));
+                }
+                int targetSize = targetSize();
+                assets.blit(g2d, assets.targetSprites[targetSize], trajectoryX[points - 1] - TARGET_MARGIN,
+                            trajectoryY[points - 1] - TARGET_MARGIN);
+            }
+        }
+        phaseStart = timings.mark(FrameTimings.Phase.AIMING, phaseStart);
+        
+        if (gameOver || gameWon) {
+            g2d.setColor(assets.endOverlay);
+            g2d.fillRect(0, 0, assets.px(WINDOW_WIDTH), assets.px(WINDOW_HEIGHT));
+            (gameWon ? assets.wonPanel : assets.lostPanel).draw(g2d);
+            // Laid out as drawFinalScore centres "Final Score: <score>"
+            int width = assets.finalScoreLabel.width + assets.finalScoreDigits.width(score);
+            int x = WINDOW_WIDTH / 2 - width / 2;
+            assets.finalScoreLabel.draw(g2d, x, WINDOW_HEIGHT / 2);
+            assets.finalScoreDigits.draw(g2d, x + assets.finalScoreLabel.width, WINDOW_HEIGHT / 2, score);
+        }
+        if (screen != g2d) {
+            tiles.present(screen);
+        }
+        return phaseStart;
+    }
+    
+    // Stops the threads the game started for itself, the tile and bloom
+    // workers and the asset builder, and gives up its sprite sets, for hosts
+    // that discard games. Call it from the thread that paints the game, or once
+    // nothing does.
+    void close() {
+        if (tiles != null) {
+            tiles.close();
+            tiles = null;
+        }
+        if (surfaces != null) {
+            surfaces.closeBloom();
+        }
+        // Before taking the rebuilt set: a build finishing after this gives its set up itself
+        requestedScale = 0;
+        if (assetBuilder != null) {
+            assetBuilder.shutdownNow();
+            assetBuilder = null;
+        }
+        Assets.release(rebuiltAssets.getAndSet(null));
+        Assets.release(assets);
+        assets = null;
+    }
+
+    // The band workers, started by the first tiled frame
+    private TiledRenderer tiles() {
+        if (tiles == null) {
+            tiles = new TiledRenderer(Integer.getInteger(TiledRenderer.THREADS_PROPERTY,
+                                                         Runtime.getRuntime().availableProcessors()),
+                                      this::paintBand);
+        }
+        return tiles;
+    }
+    
+    // One band of the background and grid, as paintCached draws them, for the
+    // rows top to bottom of the frame. Runs on a tile worker alongside the
+    // others: it reads the game and the frame's band fields and writes only its
+    // own rows of the background raster and of the tiles' image.
+    private void paintBand(Graphics2D g2d, int top, int bottom) {
+        Assets assets = bandAssets;
+        Surfaces surfaces = bandSurfaces;
+        int width = surfaces.background.getWidth();
+        composeBackground(assets, surfaces, bandShade, top, bottom);
+        particles.draw(surfaces.backgroundPixels, width, assets.scale, top, bottom);
+        g2d.drawImage(surfaces.background, 0, top, width, bottom, 0, top, width, bottom, null);
+        for (Layer edge : assets.gameAreaBorder) {
+            edge.draw(g2d);
+        }
+        // Logical rows the band covers, widened by a sprite's reach
+        int first = (int) (top / assets.scale) - BUBBLE_SIZE - 2 * BUBBLE_SPRITE_MARGIN - 1;
+        int last = (int) Math.ceil(bottom / assets.scale) + BUBBLE_SPRITE_MARGIN;
+        int firstRow = 0;
+        while (firstRow < BOARD_ROWS && Level.cellY(firstRow) < first) {
+            firstRow++;
+        }
+        int lastRow = firstRow;
+        while (lastRow < BOARD_ROWS && Level.cellY(lastRow) <= last) {
+            lastRow++;
+        }
+        drawBoardSprites(g2d, assets, firstRow, lastRow, bandBodies, bandRingFade);
+        for (int i = 0; i < shootingBubbles.size(); i++) {
+            Bubble bubble = shootingBubbles.get(i);
+            if (bubble.y >= first && bubble.y <= last) {
+                drawBubbleSprite(g2d, assets, bubble.x, bubble.y, bubble.color, bandBodies, bandRingFade);
+            }
+        }
+        effects.draw(g2d, Palette.BUBBLES, bandBodies, BUBBLE_SPRITE_MARGIN, assets.scale);
+        scorePopups.draw(g2d, assets.fades);
+    }
+    
+    // The sprite set to draw with. The first is built on the spot; after that a
+    // change of scale is rendered by the worker while the old set carries on,
+    // and the new set is swapped in by the first frame after it is ready. A
+    // resize passes through many scales, but only the last one asked for is
+    // built: builds queued for the ones before it find they are stale and skip.
+    private Assets currentAssets() {
+        float scale = viewport.scale();
+        Assets rebuilt = rebuiltAssets.getAndSet(null);
+        if (rebuilt != null) {
+            if (rebuilt.scale == scale) {
+                Assets.release(assets);
+                assets = rebuilt;
+            } else {
+                Assets.release(rebuilt);
+            }
+        }
+        if (assets == null) {
+            assets = Assets.acquire(scale, this);
+        }
+        if (assets.scale == scale) {
+            requestedScale = scale;
+        } else if (requestedScale != scale) {
+            requestedScale = scale;
+            if (assetBuilder == null) {
+                assetBuilder = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "asset-builder");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            assetBuilder.execute(() -> {
+                if (requestedScale != scale) return;
+                Assets.release(rebuiltAssets.getAndSet(Assets.acquire(scale, this)));
+                // Asked for another scale, or closed, while it was built
+                if (requestedScale != scale) {
+                    Assets.release(rebuiltAssets.getAndSet(null));
+                }
+            });
+        }
+        return assets;
+    }
+    
+    // The game's surfaces for a set of sprites, made again when the scale changes
+    private Surfaces surfaces(Assets assets) {
+        if (surfaces == null || surfaces.scale != assets.scale) {
+            if (surfaces != null) {
+                surfaces.closeBloom();
+            }
+            surfaces = new Surfaces(assets.scale);
+        }
+        return surfaces;
+    }
+    
+    // Leaves the Graphics drawing in device pixels with the frame's top left at
+    // 0, 0 and one logical pixel the assets' scale across. On a scaled screen
+    // that takes a copy of the Graphics transform, the only allocation a frame
+    // makes there. An old set waiting to be replaced is stretched to fit.
+    private void toDevicePixels(Graphics2D g2d, Assets assets) {
+        if (viewport.deviceScale() != 1) {
+            AffineTransform transform = g2d.getTransform();
+            transform.setToTranslation(transform.getTranslateX(), transform.getTranslateY());
+            g2d.setTransform(transform);
+        }
+        if (viewport.originX() != 0 || viewport.originY() != 0) {
+            g2d.translate(viewport.originX(), viewport.originY());
+        }
+        if (assets.scale != viewport.scale()) {
+            float stretch = viewport.scale() / assets.scale;
+            g2d.scale(stretch, stretch);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+    }
+    
+    // Copies rows top to bottom of the full-brightness backdrop into the background
+    // raster, darkened as a black fill with the given alpha would
+    private static void composeBackground(Assets assets, Surfaces surfaces, int shade, int top, int bottom) {
+        int[] backdropPixels = assets.backdropPixels;
+        int[] backgroundPixels = surfaces.backgroundPixels;
+        int width = surfaces.background.getWidth();
+        int from = top * width;
+        int to = bottom * width;
+        if (shade == 0) {
+            System.arraycopy(backdropPixels, from, backgroundPixels, from, to - from);
+            return;
+        }
+        // Red and blue are scaled together in one multiply, green in another;
+        // keep runs to 256 so a scale of 255/255 leaves the pixel as it was
+        int keep = 255 - shade;
+        keep += keep >> 7;
+        for (int i = from; i < to; i++) {
+            int pixel = backdropPixels[i];
+            int redBlue = ((pixel & 0xff00ff) * keep >>> 8) & 0xff00ff;
+            int green = ((pixel & 0xff00) * keep >>> 8) & 0xff00;
+            backgroundPixels[i] = redBlue | green;
+        }
+    }
+    
+    // Glows for the grid, the shots and the shooter, splatted and blurred in one
+    // pass and drawn under all of them
+    private void drawBloom(Graphics2D g2d, Assets assets, Surfaces surfaces) {
+        Bloom bloom = surfaces.bloom();
+        bloom.clear();
+        int size = assets.px(BUBBLE_SIZE);
+        for (int row = 0; row < BOARD_ROWS; row++) {
+            for (int col = 0; col < BOARD_COLS; col++) {
+                if (!board.isEmpty(row, col)) {
+                    bloom.add(assets.px(Level.cellX(row, col)), assets.px(Level.cellY(row)), size,
+                              Palette.BUBBLES.color(board.get(row, col)), 100);
+                }
+            }
+        }
+        for (int i = 0; i < shootingBubbles.size(); i++) {
+            Bubble bubble = shootingBubbles.get(i);
+            bloom.add(assets.px(bubble.x), assets.px(bubble.y), size, Palette.BUBBLES.color(bubble.color), 100);
+        }
+        if (nextBubble != null) {
+            int glowSize = shooterPulseSize() + 10;
+            int offset = (BUBBLE_SIZE - glowSize) / 2;
+            bloom.add(assets.px(nextBubble.x + offset), assets.px(nextBubble.y + offset), assets.px(glowSize),
+                      Palette.BUBBLES.color(nextBubble.color), 150);
+        }
+        bloom.draw(g2d);
+    }
+    
+    // The bubbles in board rows firstRow (inclusive) to lastRow (exclusive)
+    private void drawBoardSprites(Graphics2D g2d, Assets assets, int firstRow, int lastRow,
+                                  BufferedImage[] bodies, AlphaComposite ringFade) {
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int col = 0; col < BOARD_COLS; col++) {
+                if (!board.isEmpty(row, col)) {
+                    drawBubbleSprite(g2d, assets, Level.cellX(row, col), Level.cellY(row), board.get(row, col),
+                                     bodies, ringFade);
+                }
+            }
+        }
+    }
+    
+    private void drawBubbleSprite(Graphics2D g2d, Assets assets, int x, int y, int color, BufferedImage[] bodies,
+                                  AlphaComposite ringFade) {
+        assets.blit(g2d, bodies[color], x - BUBBLE_SPRITE_MARGIN, y - BUBBLE_SPRITE_MARGIN);
+        g2d.setComposite(ringFade);
+        assets.blit(g2d, assets.borderRing, x - RING_MARGIN, y - RING_MARGIN);
+        g2d.setComposite(AlphaComposite.SrcOver);
+    }
+    
+    // Left edges of the score, level and bubbles sections of the HUD
+    private static final int[] UI_SECTION_X = {30, 200, 370};
+    
+    // Sprite offsets: how far each sprite reaches past the point it is drawn for
+    private static final int BUBBLE_SPRITE_MARGIN = 10;
+    private static final int RING_MARGIN = 2;
+    private static final int SHOOTER_GLOW_MARGIN = 20;
+    private static final int SHOOTER_MIN_SIZE = 31;
+    private static final int SHOOTER_MAX_SIZE = 38;
+    private static final int PREVIEW_MARGIN_X = 12;
+    private static final int PREVIEW_MARGIN_Y = 22;
+    private static final int TARGET_MARGIN = 12;
+    
+    // Every pre-rendered image the cached renderer draws, rendered for one scale:
+    // device pixels per logical pixel. Sprites are drawn by the legacy methods
+    // onto a Graphics scaled to match, so they are sharp on a scaled screen.
+    // Nothing in a set changes once it is built, so there is one per scale for
+    // the whole JVM, rendered by the first game to need it and then read by all
+    // of them from any thread. What a game draws into goes in its Surfaces.
+    // Games count themselves in and out of a set, and the last one out drops it
+    // from the shared table, so scales a resize passed through are not kept.
+    private static final class Assets {
+        private static final ConcurrentHashMap<Float, Assets> SHARED = new ConcurrentHashMap<>();
+        
+        // Games holding the set; only changed under SHARED's lock on its scale
+        private int users;
+        final float scale;
+        final BufferedImage backdrop;
+        final int[] backdropPixels;
+        final Layer[] gameAreaBorder;
+        final Layer uiPanel;
+        final Layer shooterArea;
+        final BufferedImage[] bubbleSprites;
+        // Bubbles without their outer glow, for RenderMode.BLOOM and the low quality tiers
+        final BufferedImage[] bubbleCores;
+        final BufferedImage borderRing;
+        final BufferedImage[][] shooterGlows;
+        final BufferedImage[] previewSprites;
+        final BufferedImage[] targetSprites;
+        final Layer wonPanel;
+        final Layer lostPanel;
+        // Text is pre-rendered too: every switch between fonts costs the Graphics
+        // an allocation, so frames themselves never call setFont. Numbers are put
+        // together from pre-rendered digits.
+        final GlowText.Digits[] valueDigits;
+        final GlowText.Image finalScoreLabel;
+        final GlowText.Digits finalScoreDigits;
+        final Stroke aimStroke;
+        final Color[] accentShades;
+        final AlphaComposite[] fades;
+        final Color endOverlay;
+        
+        // The set for a scale, built on the spot when no game holds one; a game
+        // asking while another builds it waits for that one. Each call is
+        // matched by a release once the game stops drawing with the set.
+        static Assets acquire(float scale, BubbleShooterGame painter) {
+            return SHARED.compute(scale, (s, shared) -> {
+                Assets assets = shared != null ? shared : new Assets(s, painter);
+                assets.users++;
+                return assets;
+            });
+        }
+        
+        // Gives up a set from acquire; null is ignored
+        static void release(Assets assets) {
+            if (assets == null) return;
+            SHARED.computeIfPresent(assets.scale, (s, shared) ->
+                shared == assets && --shared.users == 0 ? null : shared);
+        }
+        
+        // Pixel memory held by the sets games are using
+        static long sharedBytes() {
+            long bytes = 0;
+            for (Assets assets : SHARED.values()) {
+                bytes += assets.bytes();
+            }
+            return bytes;
+        }
+        
+        // Sprites are drawn by painter's legacy methods; every game draws them alike
+        private Assets(float scale, BubbleShooterGame painter) {
+            this.scale = scale;
+            accentShades = Palette.shades(painter.accentColor);
+            // The table stops just short of opaque: a fully opaque SrcOver takes another
+            // blit path, and meeting it mid-game deoptimises the compiled fade code
+            fades = new AlphaComposite[256];
+            for (int alpha = 0; alpha < fades.length; alpha++) {
+                fades[alpha] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, Math.min(alpha, 254) / 255f);
+            }
+            endOverlay = new Color(0, 0, 0, 180);
+            
+            backdrop = new BufferedImage(px(WINDOW_WIDTH), px(WINDOW_HEIGHT), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = spriteGraphics(backdrop, scale);
+            painter.drawBackground(g2d, 1f);
+            painter.drawGameAreaFill(g2d);
+            g2d.dispose();
+            backdropPixels = ((DataBufferInt) backdrop.getRaster().getDataBuffer()).getData();
+            
+            // Only the edges of the game area border are blitted, not the empty middle
+            int areaTop = UI_HEIGHT + 8;
+            int areaWidth = WINDOW_WIDTH - 16;
+            int areaHeight = SHOOTER_Y - UI_HEIGHT - 16;
+            int edge = 22;
+            Layer border = new Layer(8, areaTop, areaWidth, areaHeight, scale, painter::drawGameAreaBorder);
+            gameAreaBorder = new Layer[] {
+                border.crop(0, 0, areaWidth, edge),
+                border.crop(0, areaHeight - edge, areaWidth, edge),
+                border.crop(0, edge, edge, areaHeight - 2 * edge),
+                border.crop(areaWidth - edge, edge, edge, areaHeight - 2 * edge)
+            };
+            uiPanel = new Layer(8, 8, WINDOW_WIDTH - 16, UI_HEIGHT - 16, scale, painter::drawUIPanel);
+            shooterArea = new Layer(48, SHOOTER_Y + 48, WINDOW_WIDTH - 96, 44, scale,
+                                    painter::drawShooterArea);
+            
+            int colors = Palette.BUBBLES.size();
+            bubbleSprites = new BufferedImage[colors];
+            bubbleCores = new BufferedImage[colors];
+            previewSprites = new BufferedImage[colors];
+            shooterGlows = new BufferedImage[colors][SHOOTER_MAX_SIZE - SHOOTER_MIN_SIZE + 1];
+            for (int i = 0; i < colors; i++) {
+                bubbleSprites[i] = sprite(BUBBLE_SIZE + 2 * BUBBLE_SPRITE_MARGIN);
+                g2d = spriteGraphics(bubbleSprites[i], scale);
+                drawBubbleBody(g2d, BUBBLE_SPRITE_MARGIN, BUBBLE_SPRITE_MARGIN, i, true);
+                g2d.dispose();
+                
+                bubbleCores[i] = sprite(BUBBLE_SIZE + 2 * BUBBLE_SPRITE_MARGIN);
+                g2d = spriteGraphics(bubbleCores[i], scale);
+                drawBubbleCore(g2d, BUBBLE_SPRITE_MARGIN, BUBBLE_SPRITE_MARGIN, i);
+                g2d.dispose();
+                
+                previewSprites[i] = sprite(BUBBLE_SIZE + 2 * PREVIEW_MARGIN_Y);
+                g2d = spriteGraphics(previewSprites[i], scale);
+                painter.drawPreviewBubble(g2d, PREVIEW_MARGIN_X, PREVIEW_MARGIN_Y, i);
+                g2d.dispose();
+                
+                for (int size = SHOOTER_MIN_SIZE; size <= SHOOTER_MAX_SIZE; size++) {
+                    BufferedImage glow = sprite(BUBBLE_SIZE + 2 * SHOOTER_GLOW_MARGIN + 4);
+                    g2d = spriteGraphics(glow, scale);
+                    drawShooterGlow(g2d, SHOOTER_GLOW_MARGIN, SHOOTER_GLOW_MARGIN, size, i);
+                    g2d.dispose();
+                    shooterGlows[i][size - SHOOTER_MIN_SIZE] = glow;
+                }
+            }
+            
+            borderRing = sprite(BUBBLE_SIZE + 2 * RING_MARGIN + 1);
+            g2d = spriteGraphics(borderRing, scale);
+            drawBubbleBorder(g2d, RING_MARGIN, RING_MARGIN, 1f);
+            g2d.dispose();
+            
+            targetSprites = new BufferedImage[21];
+            for (int size = 0; size < targetSprites.length; size++) {
+                targetSprites[size] = sprite(2 * TARGET_MARGIN + 1);
+                g2d = spriteGraphics(targetSprites[size], scale);
+                drawTarget(g2d, TARGET_MARGIN, TARGET_MARGIN, size);
+                g2d.dispose();
+            }
+            
+            int panelX = WINDOW_WIDTH / 4 - 4;
+            int panelY = WINDOW_HEIGHT / 4 - 4;
+            wonPanel = new Layer(panelX, panelY, WINDOW_WIDTH / 2 + 8, WINDOW_HEIGHT / 2 + 8, scale,
+                                 g -> painter.drawEndPanel(g, true));
+            lostPanel = new Layer(panelX, panelY, WINDOW_WIDTH / 2 + 8, WINDOW_HEIGHT / 2 + 8, scale,
+                                  g -> painter.drawEndPanel(g, false));
+            Font finalScoreFont = new Font("Arial", Font.BOLD, 24);
+            finalScoreLabel = new GlowText.Image("Final Score: ", finalScoreFont, Color.WHITE, 0, scale);
+            finalScoreDigits = new GlowText.Digits(finalScoreFont, Color.WHITE, 0, scale);
+            
+            Font valueFont = new Font("Arial", Font.BOLD, 24);
+            valueDigits = new GlowText.Digits[] {
+                new GlowText.Digits(valueFont, painter.successColor, 2, scale),
+                new GlowText.Digits(valueFont, painter.accentColor, 2, scale),
+                new GlowText.Digits(valueFont, painter.warningColor, 2, scale)
+            };
+            aimStroke = new BasicStroke(3 * scale); // round caps would go through the shape pipeline
+        }
+        
+        // A logical coordinate or length in device pixels
+        int px(int logical) {
+            return Math.round(logical * scale);
+        }
+        
+        // Draws a sprite whose top left is at the given logical point
+        void blit(Graphics2D g2d, BufferedImage sprite, int x, int y) {
+            g2d.drawImage(sprite, px(x), px(y), null);
+        }
+        
+        private BufferedImage sprite(int size) {
+            return new BufferedImage(px(size), px(size), BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        
+        // Bytes of pixels in the set. Cropped layers share their parent's
+        // pixels, so each raster is counted once.
+        long bytes() {
+            List<BufferedImage> images = new ArrayList<>();
+            images.add(backdrop);
+            images.add(borderRing);
+            images.add(uiPanel.image);
+            images.add(shooterArea.image);
+            images.add(wonPanel.image);
+            images.add(lostPanel.image);
+            images.add(finalScoreLabel.image);
+            for (Layer edge : gameAreaBorder) {
+                images.add(edge.image);
+            }
+            images.addAll(Arrays.asList(bubbleSprites));
+            images.addAll(Arrays.asList(bubbleCores));
+            images.addAll(Arrays.asList(previewSprites));
+            images.addAll(Arrays.asList(targetSprites));
+            for (BufferedImage[] glows : shooterGlows) {
+                images.addAll(Arrays.asList(glows));
+            }
+            for (GlowText.Digits digits : valueDigits) {
+                digits.addImages(images);
+            }
+            finalScoreDigits.addImages(images);
+            
+            Set<DataBuffer> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+            long bytes = 0;
+            for (BufferedImage image : images) {
+                DataBuffer pixels = image.getRaster().getDataBuffer();
+                if (counted.add(pixels)) {
+                    bytes += 4L * pixels.getSize();
+                }
+            }
+            return bytes;
+        }
+    }
+    
+    // What a game draws into at one scale, as opposed to the shared sprites:
+    // the background the particles are blended into each frame, the progress
+    // bar and the bloom buffers
+    private final class Surfaces {
+        final float scale;
+        final BufferedImage background;
+        final int[] backgroundPixels;
+        private final Layer progressBar;
+        private int progressKey = -1;
+        private Bloom bloom;
+        
+        Surfaces(float scale) {
+            this.scale = scale;
+            background = new BufferedImage(Math.round(WINDOW_WIDTH * scale), Math.round(WINDOW_HEIGHT * scale),
+                                           BufferedImage.TYPE_INT_RGB);
+            backgroundPixels = ((DataBufferInt) background.getRaster().getDataBuffer()).getData();
+            progressBar = new Layer(548, 18, 304, 40, scale, null);
+        }
+        
+        // The progress bar only changes when bubbles land or pop, so it is redrawn then
+        Layer progressBar() {
+            int key = (int) (300 * progressFraction());
+            if (key != progressKey) {
+                progressKey = key;
+                progressBar.paint(g -> drawProgressBar(g, 550, 35, 300, 20));
+            }
+            return progressBar;
+        }
+        
+        // Made on first use, as only RenderMode.BLOOM needs it
+        Bloom bloom() {
+            if (bloom == null) {
+                bloom = new Bloom(Math.round(WINDOW_WIDTH * scale), Math.round(WINDOW_HEIGHT * scale));
+            }
+            return bloom;
+        }
+        
+        // Stops the bloom's workers, for a game no longer drawing bloom at this scale
+        void closeBloom() {
+            if (bloom != null) {
+                bloom.close();
+                bloom = null;
+            }
+        }
+    }
+    
+    // A pre-rendered piece of the screen, drawn by a legacy method at its usual
+    // coordinates onto an image at the given scale
+    private static final class Layer {
+        final BufferedImage image;
+        final int x, y;
+        final float scale;
+        
+        Layer(int x, int y, int width, int height, float scale, Consumer<Graphics2D> painter) {
+            this(x, y, scale, new BufferedImage(Math.round((x + width) * scale) - Math.round(x * scale),
+                                                Math.round((y + height) * scale) - Math.round(y * scale),
+                                                BufferedImage.TYPE_INT_ARGB_PRE));
+            if (painter != null) {
+                paint(painter);
+            }
+        }
+        
+        private Layer(int x, int y, float scale, BufferedImage image) {
+            this.x = x;
+            this.y = y;
+            this.scale = scale;
+            this.image = image;
+        }
+        
+        // Clears the layer and draws it again
+        void paint(Consumer<Graphics2D> painter) {
+            Graphics2D g2d = spriteGraphics(image);
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g2d.setComposite(AlphaComposite.SrcOver);
+            g2d.scale(scale, scale);
+            g2d.translate(-x, -y);
+            painter.accept(g2d);
+            g2d.dispose();
+        }
+        
+        // Part of this layer, sharing its pixels; the edges are rounded to device
+        // pixels the same way blits round positions, so pieces meet exactly
+        Layer crop(int cropX, int cropY, int width, int height) {
+            int left = Math.round((x + cropX) * scale) - Math.round(x * scale);
+            int top = Math.round((y + cropY) * scale) - Math.round(y * scale);
+            int right = Math.min(image.getWidth(), Math.round((x + cropX + width) * scale) - Math.round(x * scale));
+            int bottom = Math.min(image.getHeight(), Math.round((y + cropY + height) * scale) - Math.round(y * scale));
+            return new Layer(x + cropX, y + cropY, scale, image.getSubimage(left, top, right - left, bottom - top));
+        }
+        
+        void draw(Graphics2D g2d) {
+            g2d.drawImage(image, Math.round(x * scale), Math.round(y * scale), null);
+        }
+    }
+    
+    static Graphics2D spriteGraphics(BufferedImage image) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return g2d;
+    }
+    
+    // For drawing in logical pixels onto an image rendered at the given scale
+    static Graphics2D spriteGraphics(BufferedImage image, float scale) {
+        Graphics2D g2d = spriteGraphics(image);
+        if (scale != 1) {
+            g2d.scale(scale, scale);
+        }
+        return g2d;
     }
     
     private void drawBackground(Graphics2D g2d) {
+        drawBackground(g2d, backgroundWave());
+    }
+    
+    // Brightness of the animated background, between 0.8 and 1
+    private float backgroundWave() {
+        return (float) Math.sin(animationFrame * 0.01) * 0.1f + 0.9f;
+    }
+    
+    private void drawBackground(Graphics2D g2d, float wave) {
         // Animated gradient background
-        float wave = (float) Math.sin(animationFrame * 0.01) * 0.1f + 0.9f;
         Color bg1 = new Color((int)(20 * wave), (int)(25 * wave), (int)(35 * wave));
         Color bg2 = new Color((int)(45 * wave), (int)(52 * wave), (int)(70 * wave));
         
@@ -187,13 +1265,18 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
     }
     
     private void drawGameArea(Graphics2D g2d) {
+        drawGameAreaFill(g2d);
+        drawGameAreaBorder(g2d);
+    }
+    
+    private void drawGameAreaFill(Graphics2D g2d) {
         // Game area with rounded border
-        RoundRectangle2D gameArea = new RoundRectangle2D.Double(
-            10, UI_HEIGHT + 10, WINDOW_WIDTH - 20, SHOOTER_Y - UI_HEIGHT - 20, 20, 20);
-        
         g2d.setColor(new Color(0, 0, 0, 50));
-        g2d.fill(gameArea);
-        
+        g2d.fill(gameAreaShape());
+    }
+    
+    private void drawGameAreaBorder(Graphics2D g2d) {
+        RoundRectangle2D gameArea = gameAreaShape();
         g2d.setStroke(new BasicStroke(3));
         g2d.setColor(accentColor);
         g2d.draw(gameArea);
@@ -206,27 +1289,45 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         g2d.draw(innerGlow);
     }
     
-    private void drawEnhancedBubble(Graphics2D g2d, Bubble bubble) {
-        // Enhanced bubble with multiple layers
-        int x = bubble.x;
-        int y = bubble.y;
-        Color color = bubble.color;
-        
-        // Outer glow
+    private static RoundRectangle2D gameAreaShape() {
+        return new RoundRectangle2D.Double(
+            10, UI_HEIGHT + 10, WINDOW_WIDTH - 20, SHOOTER_Y - UI_HEIGHT - 20, 20, 20);
+    }
+    
+    void drawEnhancedBubble(Graphics2D g2d, Bubble bubble) {
+        drawEnhancedBubble(g2d, bubble.x, bubble.y, bubble.color);
+    }
+    
+    private void drawEnhancedBubble(Graphics2D g2d, int x, int y, int color) {
+        drawBubbleBody(g2d, x, y, color, quality.glows());
+        drawBubbleBorder(g2d, x, y, borderAlpha());
+    }
+    
+    // Enhanced bubble with multiple layers, in the palette colour with the given index
+    static void drawBubbleBody(Graphics2D g2d, int x, int y, int color, boolean glow) {
+        if (glow) {
+            drawBubbleGlow(g2d, x, y, color);
+        }
+        drawBubbleCore(g2d, x, y, color);
+    }
+    
+    // Outer glow
+    private static void drawBubbleGlow(Graphics2D g2d, int x, int y, int color) {
         RadialGradientPaint outerGlow = new RadialGradientPaint(
             x + BUBBLE_SIZE / 2, y + BUBBLE_SIZE / 2, BUBBLE_SIZE / 2 + 8,
             new float[]{0f, 1f},
-            new Color[]{new Color(color.getRed(), color.getGreen(), color.getBlue(), 100), 
-                       new Color(color.getRed(), color.getGreen(), color.getBlue(), 0)}
+            new Color[]{Palette.BUBBLES.shade(color, 100), Palette.BUBBLES.shade(color, 0)}
         );
         g2d.setPaint(outerGlow);
         g2d.fillOval(x - 8, y - 8, BUBBLE_SIZE + 16, BUBBLE_SIZE + 16);
-        
+    }
+    
+    private static void drawBubbleCore(Graphics2D g2d, int x, int y, int color) {
         // Main bubble with radial gradient
         RadialGradientPaint mainGradient = new RadialGradientPaint(
             x + BUBBLE_SIZE / 3, y + BUBBLE_SIZE / 3, BUBBLE_SIZE / 2,
             new float[]{0f, 0.7f, 1f},
-            new Color[]{color.brighter().brighter(), color, color.darker()}
+            new Color[]{Palette.BUBBLES.highlight(color), Palette.BUBBLES.color(color), Palette.BUBBLES.darker(color)}
         );
         g2d.setPaint(mainGradient);
         g2d.fillOval(x, y, BUBBLE_SIZE, BUBBLE_SIZE);
@@ -239,39 +1340,61 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         );
         g2d.setPaint(highlight);
         g2d.fillOval(x + 5, y + 5, BUBBLE_SIZE / 3, BUBBLE_SIZE / 3);
-        
-        // Border with animation
-        float borderAlpha = 0.7f + 0.3f * (float) Math.sin(animationFrame * 0.05);
+    }
+    
+    // Border with animation
+    private static void drawBubbleBorder(Graphics2D g2d, int x, int y, float borderAlpha) {
         g2d.setColor(new Color(254, 255, 255, (int)(255 * borderAlpha)));
         g2d.setStroke(new BasicStroke(2));
         g2d.drawOval(x, y, BUBBLE_SIZE, BUBBLE_SIZE);
     }
     
+    // Opacity of the pulsing bubble border, between 0.4 and 1; held at its
+    // middle when the quality governor turns the pulse off
+    private float borderAlpha() {
+        if (!quality.borderPulse()) return 0.7f;
+        return 0.7f + 0.3f * (float) Math.sin(animationFrame * 0.05);
+    }
+    
+    
     private void drawShooterBubble(Graphics2D g2d, Bubble bubble) {
         // Shooter bubble with pulsing effect
-        float pulse = 1.0f + 0.1f * (float) Math.sin(animationFrame * 0.1);
-        int size = (int) (BUBBLE_SIZE * pulse);
+        int size = shooterPulseSize();
         int offset = (BUBBLE_SIZE - size) / 2;
         
-        // Pulsing glow
+        if (quality.glows()) {
+            drawShooterGlow(g2d, bubble.x, bubble.y, size, bubble.color);
+        }
+        
+        // Main bubble
+        drawEnhancedBubble(g2d, bubble.x + offset, bubble.y + offset, bubble.color);
+    }
+    
+    // Diameter of the pulsing shooter bubble, 31 to 38
+    private int shooterPulseSize() {
+        float pulse = 1.0f + 0.1f * (float) Math.sin(animationFrame * 0.1);
+        return (int) (BUBBLE_SIZE * pulse);
+    }
+    
+    // Pulsing glow
+    private static void drawShooterGlow(Graphics2D g2d, int x, int y, int size, int color) {
+        int offset = (BUBBLE_SIZE - size) / 2;
         RadialGradientPaint glow = new RadialGradientPaint(
-            bubble.x + BUBBLE_SIZE / 2, bubble.y + BUBBLE_SIZE / 2, size / 2 + 15,
+            x + BUBBLE_SIZE / 2, y + BUBBLE_SIZE / 2, size / 2 + 15,
             new float[]{0f, 1f},
-            new Color[]{new Color(bubble.color.getRed(), bubble.color.getGreen(), bubble.color.getBlue(), 150), 
-                       new Color(bubble.color.getRed(), bubble.color.getGreen(), bubble.color.getBlue(), 0)}
+            new Color[]{Palette.BUBBLES.shade(color, 150), Palette.BUBBLES.shade(color, 0)}
         );
         g2d.setPaint(glow);
-        g2d.fillOval(bubble.x + offset - 15, bubble.y + offset - 15, size + 30, size + 30);
-        
-        // Main bubble
-        drawEnhancedBubble(g2d, new Bubble(bubble.x + offset, bubble.y + offset, bubble.color));
+        g2d.fillOval(x + offset - 15, y + offset - 15, size + 30, size + 30);
     }
     
     private void drawPreviewBubble(Graphics2D g2d, Bubble bubble) {
+        drawPreviewBubble(g2d, bubble.x, bubble.y, bubble.color);
+    }
+    
+    private void drawPreviewBubble(Graphics2D g2d, int x, int y, int color) {
         // Smaller preview bubble
         int previewSize = BUBBLE_SIZE * 2 / 3;
-        int x = bubble.x;
-        int y = bubble.y;
         
         g2d.setColor(new Color(0, 0, 0, 100));
         g2d.fillOval(x - 2, y + 2, previewSize, previewSize);
@@ -279,7 +1402,7 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         RadialGradientPaint gradient = new RadialGradientPaint(
             x + previewSize / 3, y + previewSize / 3, previewSize / 2,
             new float[]{0f, 1f},
-            new Color[]{bubble.color.brighter(), bubble.color.darker()}
+            new Color[]{Palette.BUBBLES.brighter(color), Palette.BUBBLES.darker(color)}
         );
         g2d.setPaint(gradient);
         g2d.fillOval(x, y, previewSize, previewSize);
@@ -319,29 +1442,44 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
                 
                 // Draw target indicator
                 Point target = trajectory.get(trajectory.size() - 1);
-                float pulse = 0.8f + 0.2f * (float) Math.sin(animationFrame * 0.2);
-                int targetSize = (int) (20 * pulse);
-                
-                g2d.setColor(new Color(255, 255, 255, 200));
-                g2d.setStroke(new BasicStroke(2));
-                g2d.drawOval(target.x - targetSize / 2, target.y - targetSize / 2, targetSize, targetSize);
-                g2d.drawLine(target.x - targetSize / 2, target.y, target.x + targetSize / 2, target.y);
-                g2d.drawLine(target.x, target.y - targetSize / 2, target.x, target.y + targetSize / 2);
+                drawTarget(g2d, target.x, target.y, targetSize());
             }
         }
     }
     
-    private List<Point> calculateTrajectory(int startX, int startY, int targetX, int targetY) {
-        List<Point> points = new ArrayList<>();
-        
-
-
-
+    // Diameter of the pulsing target marker, 12 to 20
+    private int targetSize() {
+        float pulse = 0.8f + 0.2f * (float) Math.sin(animationFrame * 0.2);
+        return (int) (20 * pulse);
+    }
+    
+    private static void drawTarget(Graphics2D g2d, int x, int y, int targetSize) {
+        g2d.setColor(new Color(255, 255, 255, 200));
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawOval(x - targetSize / 2, y - targetSize / 2, targetSize, targetSize);
+        g2d.drawLine(x - targetSize / 2, y, x + targetSize / 2, y);
+        g2d.drawLine(x, y - targetSize / 2, x, y + targetSize / 2);
+    }
+    
+    List<Point> calculateTrajectory(int startX, int startY, int targetX, int targetY) {
+        int[] xs = new int[MAX_TRAJECTORY];
+        int[] ys = new int[MAX_TRAJECTORY];
+        int count = traceTrajectory(startX, startY, targetX, targetY, xs, ys);
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Point(xs[i], ys[i]));
+        }
+        return points;
+    }
+    
+    // Fills xs/ys with the aim path (up to MAX_TRAJECTORY points) and returns the count
+    private int traceTrajectory(int startX, int startY, int targetX, int targetY, int[] xs, int[] ys) {
+        int count = 0;
         double dx = targetX - startX;
         double dy = targetY - startY;
         double distance = Math.sqrt(dx * dx + dy * dy);
         
-        if (distance == 0) return points;
+        if (distance == 0) return count;
         
         double stepX = (dx / distance) * 5;
         double stepY = (dy / distance) * 5;
@@ -349,8 +1487,10 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         double currentX = startX;
         double currentY = startY;
         
-        for (int i = 0; i < 100; i++) {
-            points.add(new Point((int) currentX, (int) currentY));
+        for (int i = 0; i < MAX_TRAJECTORY; i++) {
+            xs[count] = (int) currentX;
+            ys[count] = (int) currentY;
+            count++;
             
             currentX += stepX;
             currentY += stepY;
@@ -365,16 +1505,12 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
             if (currentY <= UI_HEIGHT + 20) break;
             
             // Check collision with existing bubbles
-            for (Bubble bubble : bubbles) {
-                double bubbleDx = currentX - (bubble.x + BUBBLE_SIZE / 2);
-                double bubbleDy = currentY - (bubble.y + BUBBLE_SIZE / 2);
-                if (Math.sqrt(bubbleDx * bubbleDx + bubbleDy * bubbleDy) < BUBBLE_SIZE) {
-                    return points;
-                }
+            if (touchesBoard(currentX, currentY, BUBBLE_SIZE)) {
+                return count;
             }
         }
         
-        return points;
+        return count;
     }
     
     private void drawShooterArea(Graphics2D g2d) {
@@ -394,6 +1530,21 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
     }
     
     private void drawEnhancedUI(Graphics2D g2d) {
+        drawUIPanel(g2d);
+        
+        // Score section
+        drawUISection(g2d, UI_SECTION_X[0], 25, "SCORE", String.valueOf(score), successColor);
+        
+        // Level section  
+        drawUISection(g2d, UI_SECTION_X[1], 25, "LEVEL", String.valueOf(level), accentColor);
+        
+        drawUISection(g2d, UI_SECTION_X[2], 25, "BUBBLES", String.valueOf(bubblesRemaining), warningColor);
+        
+        drawProgressBar(g2d, 550, 35, 300, 20);
+    }
+    
+    // The panel and the section labels, which never change
+    private void drawUIPanel(Graphics2D g2d) {
         RoundRectangle2D uiPanel = new RoundRectangle2D.Double(10, 10, WINDOW_WIDTH - 20, UI_HEIGHT - 20, 15, 15);
         
         GradientPaint panelGradient = new GradientPaint(0, 10, primaryColor, 0, UI_HEIGHT, secondaryColor);
@@ -404,38 +1555,32 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         g2d.setStroke(new BasicStroke(2));
         g2d.draw(uiPanel);
         
-        // Score section
-        drawUISection(g2d, 30, 25, "SCORE", String.valueOf(score), successColor);
-        
-        // Level section  
-        drawUISection(g2d, 200, 25, "LEVEL", String.valueOf(level), accentColor);
-        
-        drawUISection(g2d, 370, 25, "BUBBLES", String.valueOf(bubblesRemaining), warningColor);
-        
-        drawProgressBar(g2d, 550, 35, 300, 20);
+        drawUILabel(g2d, UI_SECTION_X[0], 25, "SCORE");
+        drawUILabel(g2d, UI_SECTION_X[1], 25, "LEVEL");
+        drawUILabel(g2d, UI_SECTION_X[2], 25, "BUBBLES");
     }
     
     private void drawUISection(Graphics2D g2d, int x, int y, String label, String value, Color color) {
         // Label
-        g2d.setFont(new Font("Arial", Font.BOLD, 12));
-        g2d.setColor(Color.WHITE);
-        g2d.drawString(label, x, y);
-        
-        // Value with glow effect
-        g2d.setFont(new Font("Arial", Font.BOLD, 24));
-        FontMetrics fm = g2d.getFontMetrics();
+        drawUILabel(g2d, x, y, label);
+        drawUIValue(g2d, x, y, value, color);
+    }
+    
+    // Value with glow effect
+    private static void drawUIValue(Graphics2D g2d, int x, int y, String value, Color color) {
+        Font font = new Font("Arial", Font.BOLD, 24);
         
         // Glow
-        g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 100));
-        for (int i = -2; i <= 2; i++) {
-            for (int j = -2; j <= 2; j++) {
-                g2d.drawString(value, x + i, y + 20 + j);
-            }
-        }
+        GlowText.drawPass(g2d, value, font, color, 2, x, y + 20, true);
         
         // Main text
-        g2d.setColor(color);
-        g2d.drawString(value, x, y + 20);
+        GlowText.drawPass(g2d, value, font, color, 2, x, y + 20, false);
+    }
+    
+    private static void drawUILabel(Graphics2D g2d, int x, int y, String label) {
+        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(label, x, y);
     }
     
     private void drawProgressBar(Graphics2D g2d, int x, int y, int width, int height) {
@@ -445,8 +1590,7 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         g2d.fill(bg);
         
         // Progress
-        int totalBubbles = bubbles.size() + bubblesRemaining;
-        float progress = totalBubbles > 0 ? (float) bubblesRemaining / totalBubbles : 0;
+        float progress = progressFraction();
         int progressWidth = (int) (width * progress);
         
         if (progressWidth > 0) {
@@ -475,11 +1619,30 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         g2d.drawString(progressText, x + (width - fm.stringWidth(progressText)) / 2, y - 5);
     }
     
+    private float progressFraction() {
+        int totalBubbles = board.bubbleCount() + bubblesRemaining;
+        return totalBubbles > 0 ? (float) bubblesRemaining / totalBubbles : 0;
+    }
+    
     private void drawGameEndScreen(Graphics2D g2d) {
         // Overlay
         g2d.setColor(new Color(0, 0, 0, 180));
         g2d.fillRect(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
         
+        drawEndPanel(g2d, gameWon);
+        drawFinalScore(g2d);
+    }
+    
+    private void drawFinalScore(Graphics2D g2d) {
+        g2d.setFont(new Font("Arial", Font.BOLD, 24));
+        FontMetrics fm = g2d.getFontMetrics();
+        String scoreText = "Final Score: " + score;
+        g2d.setColor(Color.WHITE);
+        g2d.drawString(scoreText, WINDOW_WIDTH / 2 - fm.stringWidth(scoreText) / 2, WINDOW_HEIGHT / 2);
+    }
+    
+    // Everything on the end screen except the score
+    private void drawEndPanel(Graphics2D g2d, boolean gameWon) {
         // Main panel
         RoundRectangle2D panel = new RoundRectangle2D.Double(
             WINDOW_WIDTH / 4, WINDOW_HEIGHT / 4, WINDOW_WIDTH / 2, WINDOW_HEIGHT / 2, 30, 30);
@@ -496,32 +1659,17 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         
         // Title
         String title = gameWon ? "LEVEL COMPLETE!" : "GAME OVER";
-        g2d.setFont(new Font("Arial", Font.BOLD, 36));
-        FontMetrics fm = g2d.getFontMetrics();
+        Font titleFont = new Font("Arial", Font.BOLD, 36);
+        int titleX = WINDOW_WIDTH / 2 - g2d.getFontMetrics(titleFont).stringWidth(title) / 2;
         
         // Title glow
         Color titleColor = gameWon ? successColor : dangerColor;
-        g2d.setColor(new Color(titleColor.getRed(), titleColor.getGreen(), titleColor.getBlue(), 100));
-        for (int i = -3; i <= 3; i++) {
-            for (int j = -3; j <= 3; j++) {
-                g2d.drawString(title, WINDOW_WIDTH / 2 - fm.stringWidth(title) / 2 + i, 
-                              WINDOW_HEIGHT / 2 - 50 + j);
-            }
-        }
-        
-        g2d.setColor(titleColor);
-        g2d.drawString(title, WINDOW_WIDTH / 2 - fm.stringWidth(title) / 2, WINDOW_HEIGHT / 2 - 50);
-        
-        // Score
-        g2d.setFont(new Font("Arial", Font.BOLD, 24));
-        fm = g2d.getFontMetrics();
-        String scoreText = "Final Score: " + score;
-        g2d.setColor(Color.WHITE);
-        g2d.drawString(scoreText, WINDOW_WIDTH / 2 - fm.stringWidth(scoreText) / 2, WINDOW_HEIGHT / 2);
+        GlowText.drawPass(g2d, title, titleFont, titleColor, 3, titleX, WINDOW_HEIGHT / 2 - 50, true);
+        GlowText.drawPass(g2d, title, titleFont, titleColor, 3, titleX, WINDOW_HEIGHT / 2 - 50, false);
         
         // Instructions
         g2d.setFont(new Font("Arial", Font.PLAIN, 18));
-        fm = g2d.getFontMetrics();
+        FontMetrics fm = g2d.getFontMetrics();
         String instruction = "Click anywhere to " + (gameWon ? "continue" : "restart");
         g2d.setColor(accentColor);
         g2d.drawString(instruction, WINDOW_WIDTH / 2 - fm.stringWidth(instruction) / 2, WINDOW_HEIGHT / 2 + 50);
@@ -529,33 +1677,33 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
     
     @Override
     public void actionPerformed(ActionEvent e) {
+        tick();
+        repaint();
+    }
+    
+    // One simulation step; the timer calls this before every repaint
+    void tick() {
+        frameEvent = GameEvents.beginFrame();
+        long updateStart = System.nanoTime();
+        input.drain(inputHandler);
         if (!gameOver && !gameWon) {
             updateGame();
         }
         updateAnimations();
-        repaint();
+        timings.updateNanos = System.nanoTime() - updateStart;
     }
     
-    private void updateGame() {
-        // Update background particles
-        for (BackgroundParticle particle : backgroundParticles) {
-            particle.update();
-        }
-        
-        // Update floating scores
-        List<FloatingScore> scoresToRemove = new ArrayList<>();
-        for (FloatingScore floatingScore : floatingScores) {
-            floatingScore.update();
-            if (floatingScore.isFinished()) {
-                scoresToRemove.add(floatingScore);
-            }
-        }
-        floatingScores.removeAll(scoresToRemove);
+    void updateGame() {
+        // Update floating scores; finished ones drop off the ring
+        scorePopups.update();
         
         // Update shooting bubbles
-        List<Bubble> toRemove = new ArrayList<>();
+        List<Bubble> toRemove = landedShots;
+        toRemove.clear();
         
-        for (Bubble shootingBubble : shootingBubbles) {
+        for (int s = 0; s < shootingBubbles.size(); s++) {
+            Bubble shootingBubble = shootingBubbles.get(s);
+            shotTicks++;
             shootingBubble.x += shootingBubble.vx;
             shootingBubble.y += shootingBubble.vy;
             
@@ -573,14 +1721,10 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
             }
             
             // Collision with existing bubbles
-            boolean collided = false;
-            for (Bubble bubble : bubbles) {
-                if (shootingBubble.collidesWith(bubble)) {
-                    attachBubble(shootingBubble);
-                    toRemove.add(shootingBubble);
-                    collided = true;
-                    break;
-                }
+            if (touchesBoard(shootingBubble.x + BUBBLE_SIZE / 2, shootingBubble.y + BUBBLE_SIZE / 2,
+                             BUBBLE_SIZE - 3)) {
+                attachBubble(shootingBubble);
+                toRemove.add(shootingBubble);
             }
             
             // Remove if goes off screen
@@ -589,48 +1733,119 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
             }
         }
         
-        shootingBubbles.removeAll(toRemove);
+        if (!toRemove.isEmpty()) {
+            shootingBubbles.removeAll(toRemove);
+            toRemove.clear();
+        }
         
         // Check win condition
-        if (bubbles.isEmpty()) {
+        if (board.bubbleCount() == 0) {
             gameWon = true;
+            if (!winPublished) {
+                winPublished = true;
+                events.levelWon(level, score);
+                // Claim the prefetched board now so "continue" only has to swap it in
+                if (prefetcher != null) {
+                    preparedLevel = prefetcher.take(level + 1);
+                }
+            }
         }
         
-        // Check lose condition
-        for (Bubble bubble : bubbles) {
-            if (bubble.y > SHOOTER_Y - BUBBLE_SIZE - 50) {
+        // Check lose condition: any bubble in a row too close to the shooter
+        int lowest = BOARD_ROWS * BOARD_COLS;
+        for (int row = BOARD_ROWS - 1; row >= 0 && Level.cellY(row) > SHOOTER_Y - BUBBLE_SIZE - 50; row--) {
+            lowest = row * BOARD_COLS;
+        }
+        for (int cell = lowest; cell < board.cells.length; cell++) {
+            if (board.cells[cell] != 0) {
                 gameOver = true;
+                events.gameOver(level, score);
                 break;
             }
         }
     }
     
-    private void updateAnimations() {
-        // Update background particles
-        for (BackgroundParticle particle : backgroundParticles) {
-            particle.update();
+    // True when the point is less than reach from the centre of a bubble on
+    // the board. Only the cells around the point are looked at.
+    boolean touchesBoard(double x, double y, double reach) {
+        int centre = BUBBLE_SIZE / 2;
+        int firstRow = Math.max(0, (int) Math.floor((y - reach - centre - Level.cellY(0)) / BUBBLE_SIZE));
+        int lastRow = Math.min(BOARD_ROWS - 1, (int) Math.ceil((y + reach - centre - Level.cellY(0)) / BUBBLE_SIZE));
+        for (int row = firstRow; row <= lastRow; row++) {
+            double dy = y - (Level.cellY(row) + centre);
+            double left = Level.cellX(row, 0) + centre;
+            int firstCol = Math.max(0, (int) Math.floor((x - reach - left) / BUBBLE_SIZE));
+            int lastCol = Math.min(BOARD_COLS - 1, (int) Math.ceil((x + reach - left) / BUBBLE_SIZE));
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (board.isEmpty(row, col)) continue;
+                double dx = x - (Level.cellX(row, col) + centre);
+                if (Math.sqrt(dx * dx + dy * dy) < reach) {
+                    return true;
+                }
+            }
         }
+        return false;
+    }
+    
+    private void updateAnimations() {
+        // Background particles move once per tick, playing or not
+        particles.update();
+        effects.update();
     }
     
     private void attachBubble(Bubble shootingBubble) {
-        // Find the best position to attach the bubble
-        int gridX = (int) Math.round((shootingBubble.x - BUBBLE_SIZE) / (double) BUBBLE_SIZE);
+        // Find the best position to attach the bubble, kept inside the board grid
         int gridY = (int) Math.round((shootingBubble.y - BUBBLE_SIZE - UI_HEIGHT) / (double) BUBBLE_SIZE);
+        gridY = Math.max(0, Math.min(BOARD_ROWS - 1, gridY));
         
         // Adjust for hexagonal grid
-        if (gridY % 2 == 1) {
-            gridX = (int) Math.round((shootingBubble.x - BUBBLE_SIZE - BUBBLE_SIZE / 2) / (double) BUBBLE_SIZE);
+        int gridX = (int) Math.round((shootingBubble.x - BUBBLE_SIZE - (gridY % 2) * (BUBBLE_SIZE / 2))
+                                     / (double) BUBBLE_SIZE);
+        gridX = Math.max(0, Math.min(BOARD_COLS - 1, gridX));
+        
+        // Snapping can land on a taken cell; use the closest free neighbour instead
+        if (!board.isEmpty(gridY, gridX)) {
+            int centerX = shootingBubble.x + BUBBLE_SIZE / 2;
+            int centerY = shootingBubble.y + BUBBLE_SIZE / 2;
+            int count = board.neighbours(gridY, gridX, neighbourCells);
+            long bestDistance = Long.MAX_VALUE;
+            int bestCell = -1;
+            for (int i = 0; i < count; i++) {
+                int row = neighbourCells[i] / BOARD_COLS;
+                int col = neighbourCells[i] % BOARD_COLS;
+                if (!board.isEmpty(row, col)) continue;
+                
+                long dx = Level.cellX(row, col) + BUBBLE_SIZE / 2 - centerX;
+                long dy = Level.cellY(row) + BUBBLE_SIZE / 2 - centerY;
+                if (dx * dx + dy * dy < bestDistance) {
+                    bestDistance = dx * dx + dy * dy;
+                    bestCell = neighbourCells[i];
+                }
+            }
+            if (bestCell >= 0) {
+                gridY = bestCell / BOARD_COLS;
+                gridX = bestCell % BOARD_COLS;
+            }
         }
         
-        int newX = gridX * BUBBLE_SIZE + (gridY % 2) * (BUBBLE_SIZE / 2) + BUBBLE_SIZE;
-        int newY = gridY * BUBBLE_SIZE + BUBBLE_SIZE + UI_HEIGHT;
+        if (shotEvent != null) {
+            shotEvent.travelTicks = shotTicks;
+            shotEvent.row = gridY;
+            shotEvent.col = gridX;
+            shotEvent.commit();
+            shotEvent = null;
+        }
         
-        Bubble newBubble = new Bubble(newX, newY, shootingBubble.color);
-        bubbles.add(newBubble);
+        board.set(gridY, gridX, shootingBubble.color);
+        changes.mark(gridY * BOARD_COLS + gridX);
         bubblesRemaining++;
+        landedRow = gridY;
+        landedCol = gridX;
+        poppedBubbles = 0;
+        droppedBubbles = 0;
         
         // Check for matches
-        checkMatches(newBubble);
+        checkMatches(gridY, gridX);
         
         // Create next bubble and move preview to current
         nextBubble = previewBubble;
@@ -638,193 +1853,227 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
         nextBubble.y = SHOOTER_Y;
         
         previewBubble = new Bubble(WINDOW_WIDTH / 2 + 80, SHOOTER_Y + 10, 
-                                  bubbleColors[random.nextInt(Math.min(4 + level, bubbleColors.length))]);
+                                  random.nextInt(colorCount()));
+        
+        checkpoint(false);
     }
     
-    private void checkMatches(Bubble startBubble) {
-        List<Bubble> matchingBubbles = new ArrayList<>();
-        List<Bubble> visited = new ArrayList<>();
-        
-        findMatchingBubbles(startBubble, matchingBubbles, visited);
+    // Pops the group of same-coloured bubbles the bubble in this cell belongs
+    // to when it has three or more, then drops whatever that left hanging
+    void checkMatches(int row, int col) {
+        GameEvents.CheckMatches event = new GameEvents.CheckMatches();
+        event.begin();
+        byte[] cells = board.cells;
+        int start = row * BOARD_COLS + col;
+        int matching = 0;
+        if (cells[start] != 0) {
+            Arrays.fill(reachedCells, false);
+            reachedCells[start] = true;
+            floodCells[0] = start;
+            matching = flood(1, cells[start]);
+        }
         
-        if (matchingBubbles.size() >= 3) {
-            bubbles.removeAll(matchingBubbles);
-            bubblesRemaining -= matchingBubbles.size();
+        boolean popped = matching >= 3;
+        if (popped) {
+            bubblesRemaining -= matching;
+            poppedBubbles = matching;
             
-            int points = matchingBubbles.size() * 10 * level;
+            int points = matching * 10 * level;
             score += points;
             
             // Add floating score
-            floatingScores.add(new FloatingScore(startBubble.x, startBubble.y, points));
-            
+            scorePopups.add(Level.cellX(row, col), Level.cellY(row), points);
+            events.bubblesPopped(level, matching, points, score);
+            for (int i = 0; i < matching; i++) {
+                int cell = floodCells[i];
+                int cellRow = cell / BOARD_COLS;
+                effects.emitPop(Level.cellX(cellRow, cell % BOARD_COLS), Level.cellY(cellRow), cells[cell] - 1);
+                cells[cell] = 0;
+                changes.mark(cell);
+            }
+        }
+        // Timed without the floating-bubble pass, which records its own event
+        event.groupSize = matching;
+        event.popped = popped;
+        event.commit();
+        
+        if (popped) {
             // Remove floating bubbles
             removeFloatingBubbles();
         }
     }
     
-    private void findMatchingBubbles(Bubble bubble, List<Bubble> matching, List<Bubble> visited) {
-        if (visited.contains(bubble)) return;
-        
-        visited.add(bubble);
-        matching.add(bubble);
-        
-        for (Bubble other : bubbles) {
-            if (!visited.contains(other) && bubble.isAdjacent(other) && 
-                bubble.color.equals(other.color)) {
-                findMatchingBubbles(other, matching, visited);
+    // Breadth-first over occupied neighbours from the first count cells of
+    // floodCells, already marked reached, adding each cell it reaches to the
+    // list. Only cells holding colour are followed, or any bubble when colour
+    // is 0. Returns the length of the list.
+    private int flood(int count, byte colour) {
+        byte[] cells = board.cells;
+        for (int next = 0; next < count; next++) {
+            int cell = floodCells[next];
+            int neighbours = board.neighbours(cell / BOARD_COLS, cell % BOARD_COLS, neighbourCells);
+            for (int i = 0; i < neighbours; i++) {
+                int other = neighbourCells[i];
+                if (!reachedCells[other] && cells[other] != 0 && (colour == 0 || cells[other] == colour)) {
+                    reachedCells[other] = true;
+                    floodCells[count++] = other;
+                }
             }
         }
+        return count;
     }
     
-    private void removeFloatingBubbles() {
-        List<Bubble> connected = new ArrayList<>();
-        List<Bubble> visited = new ArrayList<>();
+    void removeFloatingBubbles() {
+        GameEvents.RemoveFloating event = new GameEvents.RemoveFloating();
+        event.begin();
+        byte[] cells = board.cells;
         
         // Find all bubbles connected to the top
-        for (Bubble bubble : bubbles) {
-            if (bubble.y <= BUBBLE_SIZE * 2 + UI_HEIGHT && !visited.contains(bubble)) {
-                findConnectedBubbles(bubble, connected, visited);
+        Arrays.fill(reachedCells, false);
+        int anchored = 0;
+        for (int row = 0; row < BOARD_ROWS && Level.cellY(row) <= BUBBLE_SIZE * 2 + UI_HEIGHT; row++) {
+            for (int col = 0; col < BOARD_COLS; col++) {
+                int cell = row * BOARD_COLS + col;
+                if (cells[cell] != 0) {
+                    reachedCells[cell] = true;
+                    floodCells[anchored++] = cell;
+                }
             }
         }
+        flood(anchored, (byte) 0);
         
         // Remove bubbles not connected to top
-        List<Bubble> toRemove = new ArrayList<>();
-        for (Bubble bubble : bubbles) {
-            if (!connected.contains(bubble)) {
-                toRemove.add(bubble);
+        int dropped = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] != 0 && !reachedCells[cell]) {
+                int row = cell / BOARD_COLS;
+                int x = Level.cellX(row, cell % BOARD_COLS);
+                int y = Level.cellY(row);
+                dropped++;
                 score += 5 * level; // Bonus points for floating bubbles
-                floatingScores.add(new FloatingScore(bubble.x, bubble.y, 5 * level));
+                scorePopups.add(x, y, 5 * level);
+                effects.emitFall(x, y, cells[cell] - 1);
+                cells[cell] = 0;
+                changes.mark(cell);
             }
         }
         
-        bubblesRemaining -= toRemove.size();
-        bubbles.removeAll(toRemove);
-    }
-    
-    private void findConnectedBubbles(Bubble bubble, List<Bubble> connected, List<Bubble> visited) {
-        if (visited.contains(bubble)) return;
-        
-        visited.add(bubble);
-        connected.add(bubble);
-        
-        for (Bubble other : bubbles) {
-            if (!visited.contains(other) && bubble.isAdjacent(other)) {
-                findConnectedBubbles(other, connected, visited);
-            }
+        bubblesRemaining -= dropped;
+        droppedBubbles = dropped;
+        if (dropped > 0) {
+            events.bubblesDropped(level, dropped, dropped * 5 * level, score);
         }
+        
+        event.dropped = dropped;
+        event.remaining = board.bubbleCount();
+        event.commit();
     }
     
+    // Mouse and keys only queue commands; the game state is the next tick's to change
     @Override
     public void mouseClicked(MouseEvent e) {
-        if (gameOver || gameWon) {
-            if (gameWon) {
-                level++;
-                initializeGame();
-            } else {
-                level = 1;
-                score = 0;
-                initializeGame();
-            }
-            return;
+        input.offer(InputQueue.Command.CLICK, viewport.logicalX(e.getX()), viewport.logicalY(e.getY()));
+    }
+    
+    // Applies one queued command at the start of a tick
+    private void applyInput(InputQueue.Command command, int x, int y, long time) {
+        switch (command) {
+            case AIM:
+                aimAt(x, y);
+                break;
+            case CLICK:
+                if (gameOver || gameWon) {
+                    continueOrRestart();
+                } else if (fireAt(x, y) && shotEvent != null) {
+                    shotEvent.inputLatency = System.nanoTime() - time;
+                }
+                break;
+            case UNDO:
+                undo();
+                break;
+            case REDO:
+                redo();
+                break;
         }
-        
+    }
+    
+    void setParticleCount(int count) {
+        particles = new ParticleField(count, WINDOW_WIDTH, WINDOW_HEIGHT,
+                                      new Color[] {accentColor, successColor, warningColor}, effectsRandom);
+        applyQuality();
+    }
+    
+    // Brings what the tier controls outside of painting in line with it
+    void applyQuality() {
+        particles.show(quality.allParticles() ? particles.count : particles.count / 4);
+    }
+    
+    int particleCount() {
+        return particles.count;
+    }
+    
+    // What a click on the end screen does: next level after a win, new game after a loss
+    void continueOrRestart() {
+        if (gameWon) {
+            level++;
+            startLevel();
+        } else {
+            initializeGame();
+        }
+    }
+    
+    void aimAt(int x, int y) {
+        mousePosition.setLocation(x, y);
+    }
+    
+    // Launches the loaded bubble towards the given point; false if no shot was taken
+    boolean fireAt(int targetX, int targetY) {
         if (nextBubble != null && shootingBubbles.isEmpty()) {
             // Calculate shooting direction
-            double dx = e.getX() - (nextBubble.x + BUBBLE_SIZE / 2);
-            double dy = e.getY() - (nextBubble.y + BUBBLE_SIZE / 2);
+            double dx = targetX - (nextBubble.x + BUBBLE_SIZE / 2);
+            double dy = targetY - (nextBubble.y + BUBBLE_SIZE / 2);
             double distance = Math.sqrt(dx * dx + dy * dy);
             
-            if (distance > 0 && dy < 0) { // Only shoot upward
-                double speed = 10;
-                nextBubble.vx = (int) ((dx / distance) * speed);
-                nextBubble.vy = (int) ((dy / distance) * speed);
-                
+            double speed = 10;
+            int vx = distance > 0 ? (int) ((dx / distance) * speed) : 0;
+            int vy = distance > 0 ? (int) ((dy / distance) * speed) : 0;
+            // Only shoot upward. Within about 6 degrees of the horizontal the
+            // vertical speed truncates to nothing and the shot would bounce
+            // between the walls for ever, so that is not upward either.
+            if (vy < 0) {
+                nextBubble.vx = vx;
+                nextBubble.vy = vy;
+
+                shotEvent = GameEvents.beginShot(Math.toDegrees(Math.atan2(-dy, dx)));
+                shotTicks = 0;
+                landedRow = -1;
+                landedCol = -1;
+                poppedBubbles = 0;
+                droppedBubbles = 0;
                 shootingBubbles.add(nextBubble);
                 nextBubble = null;
+                return true;
             }
         }
+        return false;
+    }
+
+    // Takes a shot that is still flying back to the shooter, as if it had
+    // never been fired, for callers that give up on it
+    void cancelShot() {
+        if (shootingBubbles.isEmpty()) return;
+        Bubble shot = shootingBubbles.remove(0);
+        shot.x = WINDOW_WIDTH / 2 - BUBBLE_SIZE / 2;
+        shot.y = SHOOTER_Y;
+        shot.vx = 0;
+        shot.vy = 0;
+        nextBubble = shot;
+        shotEvent = null;
     }
     
     @Override
     public void mouseMoved(MouseEvent e) {
-        mousePosition = e.getPoint();
-    }
-    
-    // Floating score effect
-    private class FloatingScore {
-        private int x, y;
-        private int points;
-        private int timer;
-        private Color color;
-        
-        public FloatingScore(int x, int y, int points) {
-            this.x = x;
-            this.y = y;
-            this.points = points;
-            this.timer = 0;
-            this.color = points > 50 ? successColor : accentColor;
-        }
-        
-        public void update() {
-            timer++;
-            y -= 2;
-        }
-        
-        public void draw(Graphics2D g2d) {
-            if (timer < 60) {
-                float alpha = 1.0f - (float) timer / 60;
-                g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), (int)(255 * alpha)));
-                g2d.setFont(new Font("Arial", Font.BOLD, 16));
-                g2d.drawString("+" + points, x, y);
-            }
-        }
-        
-        public boolean isFinished() {
-            return timer >= 60;
-        }
-    }
-    
-    // Background particle effect
-    private class BackgroundParticle {
-        private float x, y;
-        private float vx, vy;
-        private Color color;
-        private int size;
-        private float alpha;
-        
-        public BackgroundParticle() {
-            reset();
-        }
-        
-        private void reset() {
-            x = random.nextFloat() * WINDOW_WIDTH;
-            y = random.nextFloat() * WINDOW_HEIGHT;
-            vx = (random.nextFloat() - 0.5f) * 0.5f;
-            vy = (random.nextFloat() - 0.5f) * 0.5f;
-            size = random.nextInt(3) + 1;
-            alpha = random.nextFloat() * 0.3f + 0.1f;
-            
-            int colorChoice = random.nextInt(3);
-            switch (colorChoice) {
-                case 0: color = accentColor; break;
-                case 1: color = successColor; break;
-                case 2: color = warningColor; break;
-            }
-        }
-        
-        public void update() {
-            x += vx;
-            y += vy;
-            
-            if (x < 0 || x > WINDOW_WIDTH || y < 0 || y > WINDOW_HEIGHT) {
-                reset();
-            }
-        }
-        
-        public void draw(Graphics2D g2d) {
-            g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), (int)(255 * alpha)));
-            g2d.fillOval((int)x, (int)y, size, size);
-        }
+        input.aim(viewport.logicalX(e.getX()), viewport.logicalY(e.getY()));
     }
     
     // Unused mouse events
@@ -841,7 +2090,6 @@ public class BubbleShooterGame extends JPanel implements ActionListener, MouseLi
             
             frame.add(game);
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.setResizable(false);
             frame.pack();
             frame.setLocationRelativeTo(null);
             frame.setVisible(true);
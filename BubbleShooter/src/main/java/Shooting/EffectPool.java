@@ -0,0 +1,162 @@
+package Shooting;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// Pop bursts and falling bubbles. Every effect lives in one of a fixed number
+// of slots allocated up front: emitting takes a slot from the free list and a
+// finished effect hands it back, so even a cascade that drops the whole board
+// creates no garbage. When every slot is busy new effects are skipped.
+class EffectPool {
+    static final int CAPACITY = 4096;
+    private static final int POP_FRAGMENTS = 8;
+    private static final int POP_LIFE = 24;
+    private static final int FRAGMENT_SIZE = 5;
+    private static final float FRAGMENT_GRAVITY = 0.15f;
+    private static final float FALL_GRAVITY = 0.45f;
+
+    private static final byte FRAGMENT = 0;
+    private static final byte FALLING = 1;
+
+    private final int left;
+    private final int right;
+    private final int floor;
+    private final Random random;
+
+    private final float[] x = new float[CAPACITY];
+    private final float[] y = new float[CAPACITY];
+    private final float[] vx = new float[CAPACITY];
+    private final float[] vy = new float[CAPACITY];
+    private final int[] life = new int[CAPACITY];
+    private final byte[] kind = new byte[CAPACITY];
+    private final byte[] color = new byte[CAPACITY];
+
+    // Slots not in use, taken from and returned to the top
+    private final int[] freeSlots = new int[CAPACITY];
+    private int freeCount;
+    // Slots in use, kept dense so updating and drawing skip the free ones
+    private final int[] active = new int[CAPACITY];
+    private int activeCount;
+
+    // Falling bubbles bounce between left and right and are gone before their
+    // sprite would reach the floor
+    EffectPool(int left, int right, int floor, Random random) {
+        this.left = left;
+        this.right = right;
+        this.floor = floor;
+        this.random = random;
+        clear();
+    }
+
+    void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            freeSlots[i] = CAPACITY - 1 - i;
+        }
+        freeCount = CAPACITY;
+        activeCount = 0;
+    }
+
+    int active() {
+        return activeCount;
+    }
+
+    // A ring of fragments flying out of a popped bubble
+    void emitPop(int bubbleX, int bubbleY, int colorIndex) {
+        float centerX = bubbleX + BubbleShooterGame.BUBBLE_SIZE / 2f;
+        float centerY = bubbleY + BubbleShooterGame.BUBBLE_SIZE / 2f;
+        for (int i = 0; i < POP_FRAGMENTS; i++) {
+            int slot = take();
+            if (slot < 0) return;
+            double angle = 2 * Math.PI * (i + random.nextFloat() * 0.5) / POP_FRAGMENTS;
+            float speed = 2 + random.nextFloat() * 2;
+            x[slot] = centerX;
+            y[slot] = centerY;
+            vx[slot] = (float) Math.cos(angle) * speed;
+            vy[slot] = (float) Math.sin(angle) * speed;
+            life[slot] = POP_LIFE;
+            kind[slot] = FRAGMENT;
+            color[slot] = (byte) colorIndex;
+        }
+    }
+
+    // A bubble cut loose from the board, hopping sideways and dropping under gravity
+    void emitFall(int bubbleX, int bubbleY, int colorIndex) {
+        int slot = take();
+        if (slot < 0) return;
+        x[slot] = bubbleX;
+        y[slot] = bubbleY;
+        vx[slot] = (random.nextFloat() - 0.5f) * 2;
+        vy[slot] = -random.nextFloat() * 2;
+        life[slot] = Integer.MAX_VALUE;
+        kind[slot] = FALLING;
+        color[slot] = (byte) colorIndex;
+    }
+
+    private int take() {
+        if (freeCount == 0) return -1;
+        int slot = freeSlots[--freeCount];
+        active[activeCount++] = slot;
+        return slot;
+    }
+
+    void update() {
+        int i = 0;
+        while (i < activeCount) {
+            int slot = active[i];
+            x[slot] += vx[slot];
+            y[slot] += vy[slot];
+            boolean done;
+            if (kind[slot] == FRAGMENT) {
+                vy[slot] += FRAGMENT_GRAVITY;
+                done = --life[slot] <= 0;
+            } else {
+                vy[slot] += FALL_GRAVITY;
+                if (x[slot] < left || x[slot] > right) {
+                    vx[slot] = -vx[slot];
+                    x[slot] = Math.max(left, Math.min(right, x[slot]));
+                }
+                done = y[slot] > floor;
+            }
+            if (done) {
+                // Hand the slot back and move the last active one into its place
+                freeSlots[freeCount++] = slot;
+                active[i] = active[--activeCount];
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // Fragments as fading squares from the palette's shades, falling bubbles
+    // as their sprites, drawn margin pixels up and left of the bubble.
+    // Drawn in device pixels, scale of them to a logical pixel.
+    void draw(Graphics2D g2d, Palette palette, BufferedImage[] sprites, int margin, float scale) {
+        int fragment = Math.max(1, Math.round(FRAGMENT_SIZE * scale));
+        for (int i = 0; i < activeCount; i++) {
+            int slot = active[i];
+            if (kind[slot] == FRAGMENT) {
+                g2d.setColor(palette.shade(color[slot], 255 * life[slot] / POP_LIFE));
+                g2d.fillRect(Math.round(((int) x[slot] - FRAGMENT_SIZE / 2) * scale),
+                             Math.round(((int) y[slot] - FRAGMENT_SIZE / 2) * scale), fragment, fragment);
+            } else {
+                g2d.drawImage(sprites[color[slot]], Math.round(((int) x[slot] - margin) * scale),
+                              Math.round(((int) y[slot] - margin) * scale), null);
+            }
+        }
+    }
+
+    // The same effects drawn shape by shape, for the legacy renderer
+    void drawShapes(Graphics2D g2d, Palette palette, boolean glow) {
+        for (int i = 0; i < activeCount; i++) {
+            int slot = active[i];
+            if (kind[slot] == FRAGMENT) {
+                g2d.setColor(palette.shade(color[slot], 255 * life[slot] / POP_LIFE));
+                g2d.fillOval((int) x[slot] - FRAGMENT_SIZE / 2, (int) y[slot] - FRAGMENT_SIZE / 2,
+                             FRAGMENT_SIZE, FRAGMENT_SIZE);
+            } else {
+                BubbleShooterGame.drawBubbleBody(g2d, (int) x[slot], (int) y[slot], color[slot], glow);
+            }
+        }
+    }
+}
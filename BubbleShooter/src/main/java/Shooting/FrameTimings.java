@@ -0,0 +1,33 @@
+package Shooting;
+
+// Timings of the most recent frame: the update step and each paint phase.
+// Written by the game every frame and read by profiling tools; nothing here allocates.
+class FrameTimings {
+    enum Phase {
+        BACKGROUND("Background"),
+        GRID("Grid"),
+        HUD("HUD"),
+        AIMING("Aiming line"),
+        OVERLAY("Overlays");
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    // Phase.values() copies the array on every call
+    static final Phase[] PHASES = Phase.values();
+
+    final long[] phaseNanos = new long[PHASES.length];
+    long updateNanos;
+    long paintNanos;
+
+    // Records the time since the given start for a phase and returns the end time
+    long mark(Phase phase, long since) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] = now - since;
+        return now;
+    }
+}
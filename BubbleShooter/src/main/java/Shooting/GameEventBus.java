@@ -0,0 +1,187 @@
+package Shooting;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Scoring and level events for whatever wants to react to them (telemetry,
+// sound, achievements) without doing that work in the middle of a tick. The
+// game thread writes each event into the next of a ring of preallocated slots
+// and moves on; a dispatcher thread, started with the first subscriber, reads
+// the slots behind it and calls every subscriber in turn. Publishing never
+// allocates, locks or waits: with no subscribers it returns at once, and if
+// the dispatcher has fallen a whole ring behind the event is dropped and
+// counted rather than holding up the frame. A subscriber that throws is
+// reported and skipped for that event only.
+final class GameEventBus {
+    // Typed callbacks, all run on the dispatcher thread in publishing order.
+    // Scores are the total after the event.
+    interface Subscriber {
+        default void bubblesPopped(int level, int count, int points, int score) {}
+        default void bubblesDropped(int level, int count, int points, int score) {}
+        default void levelStarted(int level, int score) {}
+        default void levelWon(int level, int score) {}
+        default void gameOver(int level, int score) {}
+    }
+
+    private static final byte POPPED = 0;
+    private static final byte DROPPED = 1;
+    private static final byte LEVEL_STARTED = 2;
+    private static final byte LEVEL_WON = 3;
+    private static final byte GAME_OVER = 4;
+
+    // A power of two; a shot publishes a handful of events at most
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    private final byte[] types = new byte[CAPACITY];
+    private final int[] levels = new int[CAPACITY];
+    private final int[] counts = new int[CAPACITY];
+    private final int[] points = new int[CAPACITY];
+    private final int[] scores = new int[CAPACITY];
+    // Next slot to publish into and next to deliver; both only ever grow
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    // The publisher's last look at head, read again only when the ring seems full
+    private long knownHead;
+    private volatile long dropped;
+
+    private volatile Subscriber[] subscribers = new Subscriber[0];
+    private Thread dispatcher;
+    private volatile boolean waiting;
+
+    synchronized void subscribe(Subscriber subscriber) {
+        Subscriber[] current = subscribers;
+        Subscriber[] added = Arrays.copyOf(current, current.length + 1);
+        added[current.length] = subscriber;
+        subscribers = added;
+        if (dispatcher == null) {
+            dispatcher = new Thread(this::dispatch, "game-events");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    synchronized void unsubscribe(Subscriber subscriber) {
+        Subscriber[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscriber) {
+                Subscriber[] removed = new Subscriber[current.length - 1];
+                System.arraycopy(current, 0, removed, 0, i);
+                System.arraycopy(current, i + 1, removed, i, removed.length - i);
+                subscribers = removed;
+                return;
+            }
+        }
+    }
+
+    // Events lost to a full ring since the game started
+    long dropped() {
+        return dropped;
+    }
+
+    // Publishing, from the game thread only
+
+    void bubblesPopped(int level, int count, int points, int score) {
+        publish(POPPED, level, count, points, score);
+    }
+
+    void bubblesDropped(int level, int count, int points, int score) {
+        publish(DROPPED, level, count, points, score);
+    }
+
+    void levelStarted(int level, int score) {
+        publish(LEVEL_STARTED, level, 0, 0, score);
+    }
+
+    void levelWon(int level, int score) {
+        publish(LEVEL_WON, level, 0, 0, score);
+    }
+
+    void gameOver(int level, int score) {
+        publish(GAME_OVER, level, 0, 0, score);
+    }
+
+    private void publish(byte type, int level, int count, int points, int score) {
+        if (subscribers.length == 0) return;
+        long t = tail.get();
+        if (t - knownHead == CAPACITY) {
+            knownHead = head.get();
+            if (t - knownHead == CAPACITY) {
+                dropped++;
+                return;
+            }
+        }
+        int slot = (int) t & MASK;
+        types[slot] = type;
+        levels[slot] = level;
+        counts[slot] = count;
+        this.points[slot] = points;
+        scores[slot] = score;
+        // A full volatile store, not lazySet: it has to be ordered before the
+        // read of waiting, or a dispatcher just going to sleep could miss it
+        tail.set(t + 1);
+        if (waiting) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    // Waits up to the given time for everything published so far to be
+    // delivered; true if it was. For shutdown and benchmarks, not the game loop.
+    boolean flush(long timeoutNanos) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (head.get() < target) {
+            if (System.nanoTime() >= deadline) return false;
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    private void dispatch() {
+        long next = head.get();
+        while (true) {
+            long t = tail.get();
+            if (next == t) {
+                waiting = true;
+                if (tail.get() == next) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+                continue;
+            }
+            Subscriber[] current = subscribers;
+            for (; next < t; next++) {
+                int slot = (int) next & MASK;
+                for (Subscriber subscriber : current) {
+                    try {
+                        deliver(subscriber, slot);
+                    } catch (RuntimeException e) {
+                        System.err.println("Game event subscriber failed: " + e);
+                    }
+                }
+            }
+            head.lazySet(next);
+        }
+    }
+
+    private void deliver(Subscriber subscriber, int slot) {
+        switch (types[slot]) {
+            case POPPED:
+                subscriber.bubblesPopped(levels[slot], counts[slot], points[slot], scores[slot]);
+                break;
+            case DROPPED:
+                subscriber.bubblesDropped(levels[slot], counts[slot], points[slot], scores[slot]);
+                break;
+            case LEVEL_STARTED:
+                subscriber.levelStarted(levels[slot], scores[slot]);
+                break;
+            case LEVEL_WON:
+                subscriber.levelWon(levels[slot], scores[slot]);
+                break;
+            default:
+                subscriber.gameOver(levels[slot], scores[slot]);
+                break;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package Shooting;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Game-specific JDK Flight Recorder events. They are disabled by default and
+// switched on by the bubbleshooter.jfc settings profile, e.g.
+//   java -XX:StartFlightRecording=settings=bubbleshooter.jfc,filename=game.jfr ...
+// The per-frame event is only allocated while a recording has it enabled.
+final class GameEvents {
+    static final String CATEGORY = "Bubble Shooter";
+
+    @Name("bubbleshooter.Frame")
+    @Label("Frame")
+    @Description("One simulation step and the paint that followed it")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class Frame extends Event {
+        @Label("Level")
+        int level;
+
+        @Label("Update Time")
+        @Timespan
+        long updateTime;
+
+        @Label("Paint Time")
+        @Timespan
+        long paintTime;
+    }
+
+    @Name("bubbleshooter.Shot")
+    @Label("Shot")
+    @Description("A bubble from the moment it is fired until it lands on the board")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class Shot extends Event {
+        @Label("Angle")
+        @Description("Launch angle in degrees, 90 being straight up")
+        double angle;
+
+        @Label("Input Latency")
+        @Description("From the click being queued to the tick that fired the shot")
+        @Timespan
+        long inputLatency;
+
+        @Label("Travel Ticks")
+        int travelTicks;
+
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int col;
+    }
+
+    @Name("bubbleshooter.CheckMatches")
+    @Label("Check Matches")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class CheckMatches extends Event {
+        @Label("Group Size")
+        @Description("Same-coloured bubbles connected to the one that landed")
+        int groupSize;
+
+        @Label("Popped")
+        boolean popped;
+    }
+
+    @Name("bubbleshooter.RemoveFloating")
+    @Label("Remove Floating Bubbles")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class RemoveFloating extends Event {
+        @Label("Dropped")
+        int dropped;
+
+        @Label("Remaining")
+        int remaining;
+    }
+
+    @Name("bubbleshooter.LevelStart")
+    @Label("Level Start")
+    @Description("Loading a level layout and resetting the undo history")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class LevelStart extends Event {
+        @Label("Level")
+        int level;
+
+        @Label("Bubbles")
+        int bubbles;
+
+        @Label("Colours")
+        int colors;
+    }
+
+    private static final EventType FRAME_TYPE = EventType.getEventType(Frame.class);
+    private static final EventType SHOT_TYPE = EventType.getEventType(Shot.class);
+
+    private GameEvents() {
+    }
+
+    // A frame event to fill in, or null when no recording wants one
+    static Frame beginFrame() {
+        if (!FRAME_TYPE.isEnabled()) return null;
+        Frame frame = new Frame();
+        frame.begin();
+        return frame;
+    }
+
+    // Shots outlive the method that fires them, so they are only created when recorded
+    static Shot beginShot(double angle) {
+        if (!SHOT_TYPE.isEnabled()) return null;
+        Shot shot = new Shot();
+        shot.begin();
+        shot.angle = angle;
+        return shot;
+    }
+}
@@ -0,0 +1,111 @@
+package Shooting;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// The versus server's wire format. Every message is a type byte followed by
+// fixed-size big-endian fields, read and written with the Data streams, so
+// neither side parses anything or allocates per message. A client joins,
+// waits for its match to start, then sends shots and gets one result back for
+// each, in order; the end of the match can arrive between two results.
+final class GameProtocol {
+    // Client to server
+
+    // int match: 0 to play alone, otherwise the two players that join with
+    // the same number play each other
+    static final byte JOIN = 1;
+    // short x, short y: fire the loaded bubble towards this point of the
+    // logical frame, as a click there would
+    static final byte SHOT = 2;
+
+    // Server to client
+
+    // byte player (0 or 1), byte next colour, byte preview colour, then the
+    // board, one byte per cell row by row as in Level.cells
+    static final byte START = 16;
+    // Result below
+    static final byte RESULT = 17;
+    // byte winner (player, or NO_WINNER), int score of player 0, int score of player 1
+    static final byte MATCH_END = 18;
+
+    // Result outcomes
+    static final byte ACCEPTED = 0;
+    // The shot was not upward, so the game would not take it
+    static final byte REJECTED_AIM = 1;
+    // The player's game or the match is over
+    static final byte REJECTED_FINISHED = 2;
+
+    // Game states after a shot
+    static final byte PLAYING = 0;
+    static final byte WON = 1;
+    static final byte LOST = 2;
+
+    static final byte NO_WINNER = -1;
+
+    static final int BOARD_BYTES = BubbleShooterGame.BOARD_ROWS * BubbleShooterGame.BOARD_COLS;
+    static final int RESULT_BYTES = 18;
+
+    private GameProtocol() {
+    }
+
+    static void writeJoin(DataOutputStream out, int match) throws IOException {
+        out.writeByte(JOIN);
+        out.writeInt(match);
+        out.flush();
+    }
+
+    static void writeShot(DataOutputStream out, int x, int y) throws IOException {
+        out.writeByte(SHOT);
+        out.writeShort(x);
+        out.writeShort(y);
+        out.flush();
+    }
+
+    // What the server decided about one shot. Row, column and colour are -1
+    // and the counts 0 unless it was accepted; a shot always lands.
+    static final class Result {
+        byte outcome;
+        byte row;
+        byte col;
+        byte color;
+        short popped;
+        short dropped;
+        // Ticks the bubble flew for
+        short ticks;
+        int score;
+        byte nextColor;
+        byte previewColor;
+        byte state;
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(RESULT);
+            out.writeByte(outcome);
+            out.writeByte(row);
+            out.writeByte(col);
+            out.writeByte(color);
+            out.writeShort(popped);
+            out.writeShort(dropped);
+            out.writeShort(ticks);
+            out.writeInt(score);
+            out.writeByte(nextColor);
+            out.writeByte(previewColor);
+            out.writeByte(state);
+        }
+
+        // Reads the fields after the type byte
+        void read(DataInputStream in) throws IOException {
+            outcome = in.readByte();
+            row = in.readByte();
+            col = in.readByte();
+            color = in.readByte();
+            popped = in.readShort();
+            dropped = in.readShort();
+            ticks = in.readShort();
+            score = in.readInt();
+            nextColor = in.readByte();
+            previewColor = in.readByte();
+            state = in.readByte();
+        }
+    }
+}
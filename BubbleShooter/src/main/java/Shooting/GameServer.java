@@ -0,0 +1,391 @@
+package Shooting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hosts versus matches in which the server, not the players, decides what
+// every shot does. Each player's game is a headless BubbleShooterGame run by
+// the server: a shot is fired with the same fireAt the mouse uses and flown
+// with the same updateGame until it attaches, so trajectory, attachment,
+// matches and drops are exactly what the client would have computed, and the
+// client is told the outcome (see GameProtocol). The two players of a match
+// get games from the same seed, so the same boards and the same bubbles; the
+// first to clear the board wins and one whose board reaches the shooter loses.
+// Each connection is served by its own thread doing blocking reads and
+// writes, started with a small stack so thousands fit. Listens on loopback
+// only. Usage: GameServer [--port N] [--seed N]
+public class GameServer {
+    static final int DEFAULT_PORT = 7341;
+    // Enough for the game's own call depth; a default thread stack is 1 MB
+    private static final long CONNECTION_STACK = 256 * 1024;
+    private static final int BACKLOG = 4096;
+    // How long the first player of a versus match waits for the second
+    private static final long JOIN_TIMEOUT_MILLIS = 60_000;
+    // The slowest shot fireAt takes climbs a pixel a tick, so any shot has
+    // reached the top by then
+    private static final int MAX_SHOT_TICKS = BubbleShooterGame.SHOOTER_Y;
+
+    private final ServerSocket serverSocket;
+    private final LevelPackReader levelPack;
+    private final long seed;
+    // Versus matches with one player so far, by match number
+    private final Map<Integer, Match> waiting = new HashMap<>();
+    private final AtomicLong matchCount = new AtomicLong();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong shotsAccepted = new AtomicLong();
+    private final AtomicLong shotsRejected = new AtomicLong();
+    private final AtomicLong matchesDecided = new AtomicLong();
+    private Thread acceptor;
+    private volatile boolean running;
+
+    // Binds to the loopback address; port 0 picks a free one
+    GameServer(int port, long seed) throws IOException {
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        levelPack = LevelPackReader.openDefault();
+        this.seed = seed;
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    synchronized void start() {
+        if (running) throw new IllegalStateException("Server already running");
+        running = true;
+        acceptor = new Thread(this::accept, "game-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // Stops accepting; connections already open are closed by their clients
+    synchronized void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    long shotsAccepted() {
+        return shotsAccepted.get();
+    }
+
+    long shotsRejected() {
+        return shotsRejected.get();
+    }
+
+    long matchesDecided() {
+        return matchesDecided.get();
+    }
+
+    int openConnections() {
+        return openConnections.get();
+    }
+
+    private void accept() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Game server stopped accepting: " + e);
+                }
+                return;
+            }
+            Connection connection = new Connection(socket);
+            Thread thread = new Thread(null, connection, "game-connection-" + connectionCount.incrementAndGet(),
+                                       CONNECTION_STACK);
+            thread.setDaemon(true);
+            openConnections.incrementAndGet();
+            thread.start();
+        }
+    }
+
+    // The match numbered number, or a new one; a versus match is started by
+    // its second player and leaves the waiting list then
+    private Match join(int number) {
+        long matchSeed = seed + matchCount.getAndIncrement();
+        if (number == 0) {
+            return new Match(number, matchSeed, 1);
+        }
+        synchronized (waiting) {
+            Match match = waiting.remove(number);
+            if (match == null) {
+                match = new Match(number, matchSeed, 2);
+                waiting.put(number, match);
+            }
+            return match;
+        }
+    }
+
+    // Takes a match its first player has given up on off the waiting list;
+    // false when a second player has already taken it
+    private boolean unlist(Match match) {
+        synchronized (waiting) {
+            return waiting.remove(match.number, match);
+        }
+    }
+
+    // One or two players and who won. Everything but the number and seed is
+    // guarded by the match's lock; messages to players are sent after leaving
+    // it. The waiting list's lock may be taken while holding a match's, never
+    // the other way round.
+    private final class Match {
+        final int number;
+        final long seed;
+        final Connection[] players;
+        private int joined;
+        private boolean decided;
+        private byte winner = GameProtocol.NO_WINNER;
+
+        Match(int number, long seed, int size) {
+            this.number = number;
+            this.seed = seed;
+            players = new Connection[size];
+        }
+
+        // Adds the player, its game already built, and returns its number once
+        // every player is in, or -1 when no opponent turned up in time
+        synchronized int enter(Connection player) throws InterruptedException {
+            if (decided) return -1;
+            int index = joined++;
+            players[index] = player;
+            notifyAll();
+            long timeout = TimeUnit.MILLISECONDS.toNanos(JOIN_TIMEOUT_MILLIS);
+            long deadline = System.nanoTime() + timeout;
+            boolean unlisted = false;
+            while (joined < players.length) {
+                long wait = deadline - System.nanoTime();
+                if (wait <= 0) {
+                    // Off the waiting list first, so no one can join a match
+                    // that is over
+                    if (unlisted || unlist(this)) {
+                        decided = true;
+                        return -1;
+                    }
+                    // A second player took the match off the list just now and
+                    // is building its game; give it time to come in
+                    unlisted = true;
+                    deadline = System.nanoTime() + timeout;
+                    continue;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, wait);
+            }
+            return index;
+        }
+
+        synchronized boolean decided() {
+            return decided;
+        }
+
+        // Settles the match when a player's game ends or the player leaves;
+        // true for the call that settled it
+        synchronized boolean settle(int player, boolean won) {
+            if (decided) return false;
+            decided = true;
+            if (players.length == 1) {
+                winner = won ? (byte) 0 : GameProtocol.NO_WINNER;
+            } else {
+                winner = (byte) (won ? player : 1 - player);
+            }
+            return true;
+        }
+    }
+
+    private final class Connection implements Runnable {
+        private final Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+        private final GameProtocol.Result result = new GameProtocol.Result();
+        private Match match;
+        private int player = -1;
+        // Played only by this connection's thread; built before the match
+        // starts, after which others just read its score
+        private BubbleShooterGame game;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try {
+                socket.setTcpNoDelay(true);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                if (in.readByte() != GameProtocol.JOIN) return;
+                int number = in.readInt();
+                match = join(number);
+                game = new BubbleShooterGame(new Random(match.seed), levelPack);
+                player = match.enter(this);
+                if (player < 0) return;
+                // The last to join starts everyone, so no player can shoot, and
+                // so end the match, before the other has its start
+                if (player == match.players.length - 1) {
+                    for (int i = 0; i < match.players.length; i++) {
+                        match.players[i].sendStart(i);
+                    }
+                }
+                while (true) {
+                    byte type = in.readByte();
+                    if (type != GameProtocol.SHOT) {
+                        throw new IOException("Unexpected message " + type);
+                    }
+                    shot(in.readShort(), in.readShort());
+                }
+            } catch (EOFException | SocketException e) {
+                // The client went away
+            } catch (IOException e) {
+                System.err.println("Game connection failed: " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (player >= 0 && match.settle(player, false)) {
+                    matchEnded();
+                }
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Closing anyway
+                }
+                openConnections.decrementAndGet();
+            }
+        }
+
+        private void sendStart(int player) {
+            synchronized (this) {
+                try {
+                    out.writeByte(GameProtocol.START);
+                    out.writeByte(player);
+                    out.writeByte(game.nextBubble.color);
+                    out.writeByte(game.previewColor());
+                    out.write(game.board.cells);
+                    out.flush();
+                } catch (IOException e) {
+                    // That player has gone; its own thread settles the match
+                }
+            }
+        }
+
+        // Flies the shot to where it lands, then reports it
+        private void shot(int x, int y) throws IOException {
+            GameProtocol.Result result = this.result;
+            result.row = -1;
+            result.col = -1;
+            result.color = -1;
+            result.popped = 0;
+            result.dropped = 0;
+            result.ticks = 0;
+            if (game.gameOver || game.gameWon || match.decided()) {
+                result.outcome = GameProtocol.REJECTED_FINISHED;
+            } else {
+                int color = game.nextBubble.color;
+                int ticks = 0;
+                if (game.fireAt(x, y)) {
+                    while (!game.shootingBubbles.isEmpty() && ticks < MAX_SHOT_TICKS) {
+                        game.updateGame();
+                        ticks++;
+                    }
+                }
+                if (ticks > 0 && game.landedRow < 0) {
+                    // Never landed: the player keeps the bubble and the board is as it was
+                    game.cancelShot();
+                }
+                if (ticks > 0 && game.landedRow >= 0) {
+                    result.outcome = GameProtocol.ACCEPTED;
+                    result.row = (byte) game.landedRow;
+                    result.col = (byte) game.landedCol;
+                    result.color = (byte) color;
+                    result.popped = (short) game.poppedBubbles;
+                    result.dropped = (short) game.droppedBubbles;
+                    result.ticks = (short) ticks;
+                } else {
+                    result.outcome = GameProtocol.REJECTED_AIM;
+                }
+            }
+            result.score = game.score();
+            result.nextColor = (byte) game.nextBubble.color;
+            result.previewColor = (byte) game.previewColor();
+            result.state = game.gameWon ? GameProtocol.WON : game.gameOver ? GameProtocol.LOST : GameProtocol.PLAYING;
+            (result.outcome == GameProtocol.ACCEPTED ? shotsAccepted : shotsRejected).incrementAndGet();
+
+            synchronized (this) {
+                result.write(out);
+                out.flush();
+            }
+            if (result.outcome == GameProtocol.ACCEPTED && result.state != GameProtocol.PLAYING
+                    && match.settle(player, result.state == GameProtocol.WON)) {
+                matchEnded();
+            }
+        }
+
+        // Tells every player in the match who won. Only the thread that settled
+        // the match calls this, once; a player that has gone is skipped.
+        private void matchEnded() {
+            matchesDecided.incrementAndGet();
+            Connection[] players = match.players;
+            int[] scores = new int[2];
+            for (int i = 0; i < players.length; i++) {
+                BubbleShooterGame other = players[i].game;
+                // The other player's score as of its last shot; ints are never torn
+                scores[i] = other != null ? other.score() : 0;
+            }
+            byte winner;
+            synchronized (match) {
+                winner = match.winner;
+            }
+            for (Connection connection : players) {
+                synchronized (connection) {
+                    try {
+                        connection.out.writeByte(GameProtocol.MATCH_END);
+                        connection.out.writeByte(winner);
+                        connection.out.writeInt(scores[0]);
+                        connection.out.writeInt(scores[1]);
+                        connection.out.flush();
+                    } catch (IOException e) {
+                        // That player has gone; it lost anyway
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        int port = DEFAULT_PORT;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(value); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                default:
+                    System.err.println("Usage: GameServer [--port N] [--seed N]");
+                    System.exit(1);
+            }
+        }
+        GameServer server = new GameServer(port, seed);
+        server.start();
+        System.out.println("Game server listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+                           + ":" + server.port());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.printf("%d connections, %d shots accepted, %d rejected, %d matches decided%n",
+                              server.openConnections(), server.shotsAccepted(), server.shotsRejected(),
+                              server.matchesDecided());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package Shooting;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+// Hosts many independent games in one JVM, for kiosks and automated play.
+// Each session is a headless game with its own board, effects, particles and
+// offscreen frame. What never changes is shared by all of them: the sprite
+// sets (one per scale, see BubbleShooterGame.Assets), the palette and the
+// level pack, mapped once. Sessions are split across a fixed set of worker
+// threads, each stepping its own sessions in turn (input, tick, paint), so a
+// game is only ever touched by one thread, and every step is charged to its
+// session in thread CPU time and bytes allocated. Input for a session that is
+// not autoplayed goes through its game's queue, from any thread.
+// Usage: GameSessions [--sessions N] [--workers N] [--seconds S] [--fps N] [--seed N]
+//                     [--renderer cached|bloom|tiled|legacy] [--scale S] [--no-paint] [--leaderboard PATH]
+public class GameSessions {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static final class Session {
+        final int id;
+        final BubbleShooterGame game;
+        // Null when the input comes from outside
+        private final ScriptedPlayer player;
+        // Null for sessions that only simulate
+        private final BufferedImage frame;
+        private final Graphics2D graphics;
+        // Where finished levels and games go; null to keep no scores
+        private final Leaderboard leaderboard;
+        private boolean ended;
+        private int frameNumber;
+        // Totals kept by the session's worker, read by reports from any thread
+        private volatile long steps;
+        private volatile long cpuNanos;
+        private volatile long allocatedBytes;
+
+        Session(int id, BubbleShooterGame game, boolean autoplay, float scale, boolean paint,
+                Leaderboard leaderboard) {
+            this.id = id;
+            this.game = game;
+            this.leaderboard = leaderboard;
+            player = autoplay ? new ScriptedPlayer(game) : null;
+            if (paint) {
+                int width = Math.round(BubbleShooterGame.WINDOW_WIDTH * scale);
+                int height = Math.round(BubbleShooterGame.WINDOW_HEIGHT * scale);
+                game.setSize(width, height);
+                frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                graphics = frame.createGraphics();
+                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            } else {
+                frame = null;
+                graphics = null;
+            }
+        }
+
+        // One frame of the game, charged to this session
+        private void step(long threadId) {
+            long cpuBefore = THREADS.getCurrentThreadCpuTime();
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+            if (player != null) {
+                player.play(frameNumber);
+            }
+            frameNumber++;
+            game.tick();
+            // Submitted here rather than through the game's event bus, which
+            // would start a dispatcher thread per session
+            boolean finished = game.gameOver || game.gameWon;
+            if (finished && !ended && leaderboard != null) {
+                leaderboard.submit(id, game.level, game.score(), game.gameWon);
+            }
+            ended = finished;
+            if (graphics != null) {
+                game.paintComponent(graphics);
+            }
+            allocatedBytes += THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            cpuNanos += THREADS.getCurrentThreadCpuTime() - cpuBefore;
+            steps++;
+        }
+
+        // The last frame painted; only whole between two steps of the session
+        BufferedImage frame() {
+            return frame;
+        }
+
+        long steps() {
+            return steps;
+        }
+
+        long cpuNanos() {
+            return cpuNanos;
+        }
+
+        long allocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    private final Session[] sessions;
+    private final LevelPackReader levelPack;
+    private Thread[] workers;
+    private volatile boolean running;
+    private long frameNanos;
+
+    // Sessions submit their results to leaderboard, unless it is null
+    GameSessions(int count, long seed, RenderMode renderMode, float scale, boolean paint, boolean autoplay,
+                 Leaderboard leaderboard) {
+        levelPack = LevelPackReader.openDefault();
+        sessions = new Session[count];
+        for (int i = 0; i < count; i++) {
+            BubbleShooterGame game = new BubbleShooterGame(new Random(seed + i), levelPack);
+            game.renderMode = renderMode;
+            sessions[i] = new Session(i, game, autoplay, scale, paint, leaderboard);
+        }
+    }
+
+    Session session(int id) {
+        return sessions[id];
+    }
+
+    int size() {
+        return sessions.length;
+    }
+
+    // Levels in the shared pack, 0 when there is none
+    int packLevels() {
+        return levelPack != null ? levelPack.size() : 0;
+    }
+
+    // Steps every session once on the calling thread, before the workers start:
+    // the first frame builds what is shared and each session's own surfaces
+    void warm() {
+        if (running) throw new IllegalStateException("Sessions already running");
+        long threadId = Thread.currentThread().getId();
+        for (Session session : sessions) {
+            session.step(threadId);
+        }
+    }
+
+    // Starts stepping every session at fps frames a second on the given number
+    // of workers, or as fast as they go when fps is 0. A worker that falls
+    // behind carries on from where it is rather than catching up.
+    synchronized void start(int workerCount, int fps) {
+        if (running) throw new IllegalStateException("Sessions already running");
+        frameNanos = fps > 0 ? 1_000_000_000L / fps : 0;
+        running = true;
+        workers = new Thread[Math.max(1, Math.min(workerCount, sessions.length))];
+        for (int i = 0; i < workers.length; i++) {
+            int worker = i;
+            workers[i] = new Thread(() -> work(worker), "session-worker-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    // Stops the workers after the step each is on
+    synchronized void stop() throws InterruptedException {
+        running = false;
+        if (workers == null) return;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        workers = null;
+    }
+
+    // Stops the workers and the threads each game has of its own, such as the
+    // tiled renderer's; the sessions cannot be stepped after this
+    synchronized void close() throws InterruptedException {
+        stop();
+        for (Session session : sessions) {
+            session.game.close();
+            if (session.graphics != null) {
+                session.graphics.dispose();
+            }
+        }
+    }
+
+    private void work(int worker) {
+        long threadId = Thread.currentThread().getId();
+        long next = System.nanoTime();
+        while (running) {
+            for (int i = worker; i < sessions.length && running; i += workers.length) {
+                sessions[i].step(threadId);
+            }
+            if (frameNanos > 0) {
+                next += frameNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    next = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    // Pixel memory of the sprite sets every session shares
+    static long sharedAssetBytes() {
+        return BubbleShooterGame.sharedAssetBytes();
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int count = 100;
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        double seconds = 10;
+        int fps = 60;
+        long seed = 42;
+        RenderMode renderMode = RenderMode.CACHED;
+        float scale = 1;
+        boolean paint = true;
+        Path leaderboardFile = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--sessions": count = Integer.parseInt(value); i++; break;
+                case "--workers": workerCount = Integer.parseInt(value); i++; break;
+                case "--seconds": seconds = Double.parseDouble(value); i++; break;
+                case "--fps": fps = Integer.parseInt(value); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                case "--renderer": renderMode = RenderMode.valueOf(value.toUpperCase(Locale.ROOT)); i++; break;
+                case "--scale": scale = Float.parseFloat(value); i++; break;
+                case "--no-paint": paint = false; break;
+                case "--leaderboard": leaderboardFile = Paths.get(value); i++; break;
+                default:
+                    System.err.println("Usage: GameSessions [--sessions N] [--workers N] [--seconds S] [--fps N] "
+                                       + "[--seed N] [--renderer cached|bloom|tiled|legacy] [--scale S] [--no-paint] "
+                                       + "[--leaderboard PATH]");
+                    System.exit(1);
+            }
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+        Leaderboard leaderboard = leaderboardFile != null
+                ? new Leaderboard(leaderboardFile, Leaderboard.DEFAULT_CAPACITY) : null;
+        GameSessions host = new GameSessions(count, seed, renderMode, scale, paint, true, leaderboard);
+        host.warm();
+        long heapPerSession = (usedHeapAfterGc(memory) - heapBefore - sharedAssetBytes()) / count;
+
+        System.out.printf(Locale.ROOT, "%d sessions on %d workers, %s, %s, renderer %s, scale %s, %s%n",
+                          count, Math.max(1, Math.min(workerCount, count)), fps > 0 ? fps + " fps each" : "unpaced",
+                          paint ? "painting" : "simulation only", renderMode.name().toLowerCase(Locale.ROOT),
+                          scale, host.packLevels() > 0 ? host.packLevels() + " pack levels" : "random boards");
+        System.out.printf(Locale.ROOT, "Shared sprite sets: %.1f MB once, not per session%n",
+                          sharedAssetBytes() / 1e6);
+        System.out.printf(Locale.ROOT, "Heap per session: %.0f KB (after GC, shared sprites excluded)%n%n",
+                          heapPerSession / 1e3);
+
+        long cpuBefore = 0;
+        long allocatedBefore = 0;
+        long[] stepsBefore = new long[count];
+        long[] cpuBeforeBySession = new long[count];
+        long[] allocatedBeforeBySession = new long[count];
+        for (int i = 0; i < count; i++) {
+            Session session = host.session(i);
+            stepsBefore[i] = session.steps();
+            cpuBeforeBySession[i] = session.cpuNanos();
+            allocatedBeforeBySession[i] = session.allocatedBytes();
+            cpuBefore += session.cpuNanos();
+            allocatedBefore += session.allocatedBytes();
+        }
+        long start = System.nanoTime();
+        host.start(workerCount, fps);
+        Thread.sleep((long) (seconds * 1000));
+        host.close();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // Per session over the run: CPU per step, steps per second, bytes per step
+        Integer[] order = new Integer[count];
+        double[] cpuPerStep = new double[count];
+        double[] stepRate = new double[count];
+        double[] allocatedPerStep = new double[count];
+        long cpuTotal = -cpuBefore;
+        long allocatedTotal = -allocatedBefore;
+        for (int i = 0; i < count; i++) {
+            Session session = host.session(i);
+            long steps = Math.max(1, session.steps() - stepsBefore[i]);
+            cpuPerStep[i] = (session.cpuNanos() - cpuBeforeBySession[i]) / (double) steps;
+            stepRate[i] = (session.steps() - stepsBefore[i]) / elapsed;
+            allocatedPerStep[i] = (session.allocatedBytes() - allocatedBeforeBySession[i]) / (double) steps;
+            cpuTotal += session.cpuNanos();
+            allocatedTotal += session.allocatedBytes();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> -cpuPerStep[i]));
+
+        System.out.printf(Locale.ROOT, "%-22s %10s %10s %10s%n", "Across sessions", "p50", "p99", "max");
+        printSpread("CPU ms/step", cpuPerStep, 1e-6);
+        printSpread("Steps/s", stepRate, 1);
+        printSpread("Allocated B/step", allocatedPerStep, 1);
+
+        System.out.printf(Locale.ROOT, "%n%-8s %8s %12s %12s %8s %8s%n",
+                          "Session", "Steps", "CPU ms/step", "Alloc B/step", "Level", "Score");
+        for (int rank = 0; rank < Math.min(count, 10); rank++) {
+            int i = order[rank];
+            Session session = host.session(i);
+            System.out.printf(Locale.ROOT, "%-8d %8d %12.3f %12.0f %8d %8d%n", i,
+                              session.steps() - stepsBefore[i], cpuPerStep[i] / 1e6, allocatedPerStep[i],
+                              session.game.level, session.game.score());
+        }
+        if (count > 10) {
+            System.out.printf("(the %d most expensive of %d)%n", 10, count);
+        }
+        System.out.printf(Locale.ROOT, "%nTotal: %.2f CPU s in %.2f s (%.0f%% of %d cores), %.1f MB allocated%n",
+                          cpuTotal / 1e9, elapsed, 100 * cpuTotal / 1e9 / elapsed / Runtime.getRuntime().availableProcessors(),
+                          Runtime.getRuntime().availableProcessors(), allocatedTotal / 1e6);
+        if (leaderboard != null) {
+            leaderboard.flush();
+            List<Leaderboard.Entry> top = leaderboard.top();
+            System.out.printf(Locale.ROOT, "Leaderboard: %d results submitted, %d in the log, best %s%n",
+                              leaderboard.submitted(), leaderboard.logRecords(),
+                              top.isEmpty() ? "none yet" : top.get(0).score + " by session " + top.get(0).player);
+            leaderboard.close();
+        }
+    }
+
+    private static void printSpread(String label, double[] values, double unit) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%-22s %10.3f %10.3f %10.3f%n", label,
+                          sorted[index(sorted.length, 0.50)] * unit, sorted[index(sorted.length, 0.99)] * unit,
+                          sorted[sorted.length - 1] * unit);
+    }
+
+    private static int index(int length, double quantile) {
+        return Math.max(0, Math.min(length - 1, (int) Math.ceil(quantile * length) - 1));
+    }
+}
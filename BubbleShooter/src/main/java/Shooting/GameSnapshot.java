@@ -0,0 +1,128 @@
+package Shooting;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+// Compact binary save of a game taken between shots. Layout:
+//   int   magic "BSSV"
+//   short version
+//   byte  board rows, byte board cols
+//   int   level, int score
+//   long  RNG seed the game was reseeded with when the snapshot was taken
+//   byte  colour count, byte next colour, byte preview colour
+//   occupancy bitset, one bit per cell in row order
+//   palette index of each occupied cell, packed two per byte (high nibble first)
+//   int   CRC32 of everything before it
+class GameSnapshot {
+    static final int MAGIC = 0x42535356; // "BSSV"
+    static final int VERSION = 1;
+
+    final int level;
+    final int score;
+    final long seed;
+    final int nextColor;
+    final int previewColor;
+    final Level board;
+
+    GameSnapshot(int level, int score, long seed, int nextColor, int previewColor, Level board) {
+        this.level = level;
+        this.score = score;
+        this.seed = seed;
+        this.nextColor = nextColor;
+        this.previewColor = previewColor;
+        this.board = board;
+    }
+
+    byte[] encode() {
+        int cellCount = board.cells.length;
+        byte[] occupancy = new byte[(cellCount + 7) / 8];
+        byte[] colors = new byte[(cellCount + 1) / 2];
+        int occupied = 0;
+        for (int i = 0; i < cellCount; i++) {
+            int cell = board.cells[i];
+            if (cell == 0) continue;
+
+            occupancy[i / 8] |= (byte) (0x80 >>> (i % 8));
+            int index = cell - 1;
+            colors[occupied / 2] |= (byte) (occupied % 2 == 0 ? index << 4 : index);
+            occupied++;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + occupancy.length + colors.length);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(board.rows);
+            out.writeByte(board.cols);
+            out.writeInt(level);
+            out.writeInt(score);
+            out.writeLong(seed);
+            out.writeByte(board.colorCount);
+            out.writeByte(nextColor);
+            out.writeByte(previewColor);
+            out.write(occupancy);
+            out.write(colors, 0, (occupied + 1) / 2);
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen on a byte array
+        }
+        return bytes.toByteArray();
+    }
+
+    static GameSnapshot decode(byte[] data) throws IOException {
+        if (data.length < 4) {
+            throw new IOException("Save file truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        int stored = ((data[data.length - 4] & 0xFF) << 24) | ((data[data.length - 3] & 0xFF) << 16)
+                     | ((data[data.length - 2] & 0xFF) << 8) | (data[data.length - 1] & 0xFF);
+        if ((int) crc.getValue() != stored) {
+            throw new IOException("Save file checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a save file");
+        }
+        int version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        int rows = in.readUnsignedByte();
+        int cols = in.readUnsignedByte();
+        int level = in.readInt();
+        int score = in.readInt();
+        long seed = in.readLong();
+        Level board = new Level(rows, cols, in.readUnsignedByte());
+        int nextColor = in.readUnsignedByte();
+        int previewColor = in.readUnsignedByte();
+
+        byte[] occupancy = new byte[(rows * cols + 7) / 8];
+        in.readFully(occupancy);
+        int occupied = 0;
+        for (byte b : occupancy) {
+            occupied += Integer.bitCount(b & 0xFF);
+        }
+        byte[] colors = new byte[(occupied + 1) / 2];
+        in.readFully(colors);
+
+        int next = 0;
+        for (int i = 0; i < board.cells.length; i++) {
+            if ((occupancy[i / 8] & (0x80 >>> (i % 8))) == 0) continue;
+
+            int packed = colors[next / 2];
+            int index = next % 2 == 0 ? (packed >> 4) & 0x0F : packed & 0x0F;
+            board.cells[i] = (byte) (index + 1);
+            next++;
+        }
+        return new GameSnapshot(level, score, seed, nextColor, previewColor, board);
+    }
+}
@@ -0,0 +1,214 @@
+package Shooting;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// Text with the game's glow: the string drawn at every offset within spread
+// pixels in a translucent copy of its colour, then once on top in full colour.
+// Drawing that straight costs (2 * spread + 1)^2 + 1 string draws, so the
+// cached renderer rasterizes it once and blits the result. The images are
+// rendered at a scale for the screen and blitted in device pixels; sizes and
+// coordinates given and returned are logical pixels.
+final class GlowText {
+    private static final int GLOW_ALPHA = 100;
+
+    private GlowText() {
+    }
+
+    // The glow passes, or with glow false the final pass, at the given baseline
+    static void drawPass(Graphics2D g2d, String text, Font font, Color color, int spread,
+                         int x, int y, boolean glow) {
+        g2d.setFont(font);
+        if (glow) {
+            g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), GLOW_ALPHA));
+            for (int i = -spread; i <= spread; i++) {
+                for (int j = -spread; j <= spread; j++) {
+                    g2d.drawString(text, x + i, y + j);
+                }
+            }
+        } else {
+            g2d.setColor(color);
+            g2d.drawString(text, x, y);
+        }
+    }
+
+    private static FontMetrics metrics(Font font) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = BubbleShooterGame.spriteGraphics(scratch);
+        FontMetrics fm = g2d.getFontMetrics(font);
+        g2d.dispose();
+        return fm;
+    }
+
+    private static BufferedImage image(int width, int height, float scale) {
+        return new BufferedImage((int) Math.ceil(width * scale), (int) Math.ceil(height * scale),
+                                 BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    // One string rendered with its glow. Drawn so its baseline starts at (x, y)
+    // like drawString would, just as a single blit.
+    static final class Image {
+        final BufferedImage image;
+        final int width;
+        private final int originX;
+        private final int originY;
+        private final float scale;
+
+        Image(String text, Font font, Color color, int spread, float scale) {
+            FontMetrics fm = metrics(font);
+            this.scale = scale;
+            width = fm.stringWidth(text);
+            originX = spread;
+            originY = spread + fm.getAscent();
+            image = image(Math.max(1, width + 2 * spread), fm.getHeight() + 2 * spread, scale);
+            Graphics2D g2d = BubbleShooterGame.spriteGraphics(image, scale);
+            if (spread > 0) {
+                drawPass(g2d, text, font, color, spread, originX, originY, true);
+            }
+            drawPass(g2d, text, font, color, spread, originX, originY, false);
+            g2d.dispose();
+        }
+
+        void draw(Graphics2D g2d, int x, int y) {
+            g2d.drawImage(image, Math.round((x - originX) * scale), Math.round((y - originY) * scale), null);
+        }
+    }
+
+    // Glyphs 0-9 rendered once, glow and text apart, so a number that changes
+    // every frame is a couple of blits per digit. All glows go down before any
+    // digit, as they do when the whole string is drawn pass by pass. Nothing
+    // changes after construction, so one set can draw on several threads.
+    static final class Digits {
+        private final BufferedImage[] glows = new BufferedImage[10];
+        private final BufferedImage[] glyphs = new BufferedImage[10];
+        private final int[] advances = new int[10];
+        private final int spread;
+        private final int ascent;
+        private final float scale;
+
+        Digits(Font font, Color color, int spread, float scale) {
+            this.spread = spread;
+            this.scale = scale;
+            FontMetrics fm = metrics(font);
+            ascent = fm.getAscent();
+            for (int d = 0; d < 10; d++) {
+                String digit = String.valueOf((char) ('0' + d));
+                advances[d] = fm.charWidth('0' + d);
+                // A little slack for glyphs that overhang their advance
+                int width = advances[d] + 2 * spread + 2;
+                int height = fm.getHeight() + 2 * spread;
+                glyphs[d] = image(width, height, scale);
+                Graphics2D g2d = BubbleShooterGame.spriteGraphics(glyphs[d], scale);
+                drawPass(g2d, digit, font, color, spread, spread, spread + ascent, false);
+                g2d.dispose();
+                if (spread > 0) {
+                    glows[d] = image(width, height, scale);
+                    g2d = BubbleShooterGame.spriteGraphics(glows[d], scale);
+                    drawPass(g2d, digit, font, color, spread, spread, spread + ascent, true);
+                    g2d.dispose();
+                }
+            }
+        }
+
+        // The power of ten of a non-negative value's leading digit
+        private static int leading(int value) {
+            int divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            return divisor;
+        }
+
+        int width(int value) {
+            value = Math.max(0, value);
+            int width = 0;
+            for (int divisor = leading(value); divisor > 0; divisor /= 10) {
+                width += advances[value / divisor % 10];
+            }
+            return width;
+        }
+
+        // Draws a non-negative value with its baseline starting at (x, y)
+        void draw(Graphics2D g2d, int x, int y, int value) {
+            value = Math.max(0, value);
+            int top = Math.round((y - ascent - spread) * scale);
+            if (spread > 0) {
+                drawDigits(g2d, glows, x - spread, top, value);
+            }
+            drawDigits(g2d, glyphs, x - spread, top, value);
+        }
+
+        // One image per digit, most significant first, from logical x and device top
+        private void drawDigits(Graphics2D g2d, BufferedImage[] images, int left, int top, int value) {
+            for (int divisor = leading(value); divisor > 0; divisor /= 10) {
+                int digit = value / divisor % 10;
+                g2d.drawImage(images[digit], Math.round(left * scale), top, null);
+                left += advances[digit];
+            }
+        }
+
+        // Adds the glyph images to the list, for counting their memory
+        void addImages(List<BufferedImage> images) {
+            for (int d = 0; d < 10; d++) {
+                images.add(glyphs[d]);
+                if (glows[d] != null) images.add(glows[d]);
+            }
+        }
+    }
+
+    // Printable ASCII in a monospaced font, rendered once side by side into one
+    // strip, so a line of text that changes every frame is one blit per
+    // character and never goes through the font pipeline. Other characters
+    // take their space and draw nothing. Coordinates are logical pixels, drawn
+    // through a Graphics2D scaled to the screen as the strip was.
+    static final class Chars {
+        private static final char FIRST = ' ';
+        private static final char LAST = '~';
+
+        private final BufferedImage strip;
+        private final int advance;
+        private final int ascent;
+        private final int height;
+        private final int cellWidth;
+        private final int cellHeight;
+        final float scale;
+
+        Chars(Font font, Color color, float scale) {
+            this.scale = scale;
+            FontMetrics fm = metrics(font);
+            advance = fm.charWidth('0');
+            ascent = fm.getAscent();
+            height = fm.getHeight();
+            cellWidth = (int) Math.ceil(advance * scale);
+            cellHeight = (int) Math.ceil(height * scale);
+            strip = new BufferedImage(cellWidth * (LAST - FIRST + 1), cellHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g2d = BubbleShooterGame.spriteGraphics(strip);
+            g2d.setFont(font.deriveFont(font.getSize2D() * scale));
+            g2d.setColor(color);
+            int baseline = Math.round(ascent * scale);
+            char[] c = new char[1];
+            for (c[0] = FIRST; c[0] <= LAST; c[0]++) {
+                // Each glyph clipped to its own cell so none bleeds into the next
+                g2d.setClip((c[0] - FIRST) * cellWidth, 0, cellWidth, cellHeight);
+                g2d.drawChars(c, 0, 1, (c[0] - FIRST) * cellWidth, baseline);
+            }
+            g2d.dispose();
+        }
+
+        // Draws the characters with their baseline starting at (x, y), like drawChars
+        void draw(Graphics2D g2d, char[] text, int offset, int length, int x, int y) {
+            int top = y - ascent;
+            for (int i = offset; i < offset + length; i++, x += advance) {
+                char c = text[i];
+                if (c <= FIRST || c > LAST) continue;
+                int source = (c - FIRST) * cellWidth;
+                g2d.drawImage(strip, x, top, x + advance, top + height,
+                              source, 0, source + cellWidth, cellHeight, null);
+            }
+        }
+    }
+}
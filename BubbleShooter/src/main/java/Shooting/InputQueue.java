@@ -0,0 +1,91 @@
+package Shooting;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Input handed from the event dispatch thread, which produces it, to the
+// simulation, which drains it at the start of each tick and is the only one
+// to touch the game state. Clicks and key commands go through a ring of
+// preallocated slots: the producer fills a slot and then publishes it by
+// moving the tail, the consumer reads slots up to the tail and then frees them
+// by moving the head. Each index is written by one side only, with an ordered
+// store, so neither side locks or allocates. Mouse moves do not take slots:
+// the latest one is kept aside and replaces any the simulation has not seen
+// yet, so a burst of moves between two ticks is applied as one aim update.
+final class InputQueue {
+    enum Command {
+        // Aim at the point; merged, only the latest counts
+        AIM,
+        // A click at the point: a shot, or leaving the end screen
+        CLICK,
+        UNDO,
+        REDO
+    }
+
+    // Receives the drained commands on the simulation thread. time is the
+    // System.nanoTime() at which the command was queued.
+    interface Handler {
+        void command(Command command, int x, int y, long time);
+    }
+
+    // A power of two. Far more clicks and keys than arrive between two ticks.
+    private static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+    private static final long NO_AIM = Long.MIN_VALUE;
+
+    private final Command[] commands = new Command[CAPACITY];
+    private final int[] xs = new int[CAPACITY];
+    private final int[] ys = new int[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    // Next slot to be written and next to be read; both only ever grow
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    // The producer's last look at head, so it reads the consumer's index only
+    // when the ring seems full
+    private long knownHead;
+
+    // The latest aim, x and y packed into one value, and when it was made
+    private final AtomicLong aim = new AtomicLong(NO_AIM);
+    private volatile long aimTime;
+
+    // Producer side. Returns false, dropping the command, if the simulation
+    // has fallen a whole ring behind.
+    boolean offer(Command command, int x, int y) {
+        long t = tail.get();
+        if (t - knownHead == CAPACITY) {
+            knownHead = head.get();
+            if (t - knownHead == CAPACITY) return false;
+        }
+        int slot = (int) t & MASK;
+        commands[slot] = command;
+        xs[slot] = x;
+        ys[slot] = y;
+        times[slot] = System.nanoTime();
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Producer side: replaces the aim not yet drained, if any
+    void aim(int x, int y) {
+        aimTime = System.nanoTime();
+        aim.set((long) x << 32 | (y & 0xffffffffL));
+    }
+
+    // Consumer side: hands every queued command to the handler in order, then
+    // the latest aim. Returns the number of commands handled.
+    int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            int slot = (int) i & MASK;
+            handler.command(commands[slot], xs[slot], ys[slot], times[slot]);
+        }
+        head.lazySet(t);
+        int handled = (int) (t - h);
+        long latest = aim.getAndSet(NO_AIM);
+        if (latest != NO_AIM) {
+            handler.command(Command.AIM, (int) (latest >> 32), (int) latest, aimTime);
+            handled++;
+        }
+        return handled;
+    }
+}
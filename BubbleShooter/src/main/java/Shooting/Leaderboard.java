@@ -0,0 +1,502 @@
+package Shooting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Scores kept across games. Every result is appended to a log on disk and
+// indexed in memory: the best results of games that ended, up to a fixed
+// number, in a heap with the weakest at the top, and the best result that
+// finished each level, won or lost. Submitting only updates the index and
+// stages the record; a writer thread appends what is staged in batches, one
+// write and one force each, so any number of sessions can submit at once.
+// Opening replays the log, stopping at the first record whose checksum fails
+// (a write cut short by a crash) and cutting it off there. Records that are no
+// longer in the index are only history, so once the log is mostly those the
+// writer rewrites it with just the indexed ones, which keeps replay short.
+//
+// Log layout:
+//   header (HEADER_SIZE bytes)
+//     int   magic "BSLB"
+//     short version
+//     short record size
+//     rest reserved (zero)
+//   records (RECORD_SIZE bytes each)
+//     int   CRC32C of the rest of the record
+//     long  time, ms since the epoch
+//     int   score
+//     int   player (session number, 0 for the local game)
+//     int   level
+//     int   flags, bit 0 set when the level was won
+class Leaderboard {
+    static final String LEADERBOARD_PROPERTY = "bubbleshooter.leaderboard";
+    static final int MAGIC = 0x42534C42; // "BSLB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 28;
+    static final int DEFAULT_CAPACITY = 100;
+    private static final int WON = 1;
+    // Records staged at most; submitters wait for the writer beyond that
+    private static final int STAGED_RECORDS = 4096;
+    // Compact once the log has this many records and is mostly history
+    private static final int COMPACT_AFTER = 16384;
+    private static final int REPLAY_BUFFER = 1 << 20;
+
+    // One result. Ranked by score, then the earlier result first.
+    static final class Entry {
+        final long time;
+        final int score;
+        final int player;
+        final int level;
+        final boolean won;
+
+        Entry(long time, int score, int player, int level, boolean won) {
+            this.time = time;
+            this.score = score;
+            this.player = player;
+            this.level = level;
+            this.won = won;
+        }
+
+        // True when this result ranks above the other
+        boolean beats(Entry other) {
+            if (score != other.score) return score > other.score;
+            if (time != other.time) return time < other.time;
+            return player < other.player;
+        }
+    }
+
+    private final Path file;
+    private final Path compactFile;
+    // The writer's; nothing else touches the channel after opening
+    private FileChannel channel;
+    private long logRecords;
+    private volatile int compactions;
+    private final long recoveryNanos;
+
+    // Guarded by this: the index, the staging buffers and the counts
+    private final Entry[] top;
+    private int topCount;
+    private Entry[] levelBests = new Entry[32];
+    private int levelBestCount;
+    private ByteBuffer staging = ByteBuffer.allocate(STAGED_RECORDS * RECORD_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(STAGED_RECORDS * RECORD_SIZE);
+    private long submitted;
+    // Submitted results the log now holds, or that compaction has folded in
+    private long settled;
+    private boolean closed;
+
+    private final Thread writer;
+
+    // Opens the log at file, creating it when there is none, and replays it
+    // into an index of the best capacity results
+    Leaderboard(Path file, int capacity) throws IOException {
+        this.file = file;
+        this.compactFile = file.resolveSibling(file.getFileName() + ".compact");
+        top = new Entry[capacity];
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long start = System.nanoTime();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        try {
+            replay();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        recoveryNanos = System.nanoTime() - start;
+
+        writer = new Thread(this::write, "leaderboard");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // File named by -Dbubbleshooter.leaderboard, or ~/.bubbleshooter/leaderboard.log;
+    // null when it cannot be opened, and the game goes on without one
+    static Leaderboard openDefault() {
+        String path = System.getProperty(LEADERBOARD_PROPERTY);
+        Path file = path != null ? Paths.get(path)
+                                 : Paths.get(System.getProperty("user.home"), ".bubbleshooter", "leaderboard.log");
+        try {
+            Leaderboard leaderboard = new Leaderboard(file, DEFAULT_CAPACITY);
+            // Don't lose the last results when the window is closed
+            Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::close, "leaderboard-flush"));
+            return leaderboard;
+        } catch (IOException e) {
+            System.err.println("Could not open leaderboard " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Submits the ends of a game's levels as the game publishes them
+    GameEventBus.Subscriber subscriber(int player) {
+        return new GameEventBus.Subscriber() {
+            @Override
+            public void levelWon(int level, int score) {
+                submit(player, level, score, true);
+            }
+
+            @Override
+            public void gameOver(int level, int score) {
+                submit(player, level, score, false);
+            }
+        };
+    }
+
+    // Records a result: a level won, or the game lost at that level. Returns
+    // at once unless the writer has fallen a whole staging buffer behind.
+    synchronized void submit(int player, int level, int score, boolean won) {
+        if (closed) throw new IllegalStateException("Leaderboard closed");
+        while (!staging.hasRemaining()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (closed) throw new IllegalStateException("Leaderboard closed");
+        }
+        long time = System.currentTimeMillis();
+        index(time, score, player, level, won);
+        putRecord(staging, time, score, player, level, won);
+        submitted++;
+        if (staging.position() == RECORD_SIZE) {
+            // The writer waits only for an empty buffer to fill
+            notifyAll();
+        }
+    }
+
+    // The best results of games that ended, best first
+    synchronized List<Entry> top() {
+        Entry[] sorted = Arrays.copyOf(top, topCount);
+        Arrays.sort(sorted, (a, b) -> a.beats(b) ? -1 : b.beats(a) ? 1 : 0);
+        return Arrays.asList(sorted);
+    }
+
+    // The best result that finished the level, or null when none has
+    synchronized Entry bestAt(int level) {
+        return level >= 0 && level < levelBests.length ? levelBests[level] : null;
+    }
+
+    synchronized long submitted() {
+        return submitted;
+    }
+
+    // Records in the log file, as of the writer's last batch
+    synchronized long logRecords() {
+        return logRecords;
+    }
+
+    int compactions() {
+        return compactions;
+    }
+
+    long recoveryNanos() {
+        return recoveryNanos;
+    }
+
+    // Waits until everything submitted so far is on disk
+    synchronized void flush() throws InterruptedException {
+        while (settled < submitted && writer.isAlive()) {
+            wait();
+        }
+    }
+
+    // Writes what is staged and stops the writer. Submitting afterwards fails.
+    void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void index(long time, int score, int player, int level, boolean won) {
+        boolean ranks = !won && (topCount < top.length || (top.length > 0 && beats(time, score, player, top[0])));
+        boolean best = level >= 0 && (level >= levelBests.length || levelBests[level] == null
+                                      || beats(time, score, player, levelBests[level]));
+        if (!ranks && !best) return;
+
+        Entry entry = new Entry(time, score, player, level, won);
+        if (ranks) {
+            if (topCount < top.length) {
+                top[topCount] = entry;
+                siftUp(topCount++);
+            } else {
+                top[0] = entry;
+                siftDown(0);
+            }
+        }
+        if (best) {
+            if (level >= levelBests.length) {
+                levelBests = Arrays.copyOf(levelBests, Math.max(level + 1, levelBests.length * 2));
+            }
+            if (levelBests[level] == null) {
+                levelBestCount++;
+            }
+            levelBests[level] = entry;
+        }
+    }
+
+    private static boolean beats(long time, int score, int player, Entry other) {
+        if (score != other.score) return score > other.score;
+        if (time != other.time) return time < other.time;
+        return player < other.player;
+    }
+
+    // The heap keeps the weakest of the top results at index 0
+    private void siftUp(int i) {
+        Entry entry = top[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!top[parent].beats(entry)) break;
+            top[i] = top[parent];
+            i = parent;
+        }
+        top[i] = entry;
+    }
+
+    private void siftDown(int i) {
+        Entry entry = top[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= topCount) break;
+            if (child + 1 < topCount && top[child].beats(top[child + 1])) {
+                child++;
+            }
+            if (!entry.beats(top[child])) break;
+            top[i] = top[child];
+            i = child;
+        }
+        top[i] = entry;
+    }
+
+    // What the index holds, each result once: a lost game can be both among
+    // the top results and its level's best
+    private Entry[] live() {
+        List<Entry> live = new ArrayList<>(topCount + levelBestCount);
+        live.addAll(Arrays.asList(top).subList(0, topCount));
+        for (Entry entry : levelBests) {
+            if (entry != null && (entry.won || !inTop(entry))) {
+                live.add(entry);
+            }
+        }
+        return live.toArray(new Entry[0]);
+    }
+
+    private boolean inTop(Entry entry) {
+        for (int i = 0; i < topCount; i++) {
+            if (top[i] == entry) return true;
+        }
+        return false;
+    }
+
+    private static void putRecord(ByteBuffer buffer, long time, int score, int player, int level, boolean won) {
+        buffer.putInt(0);
+        buffer.putLong(time);
+        buffer.putInt(score);
+        buffer.putInt(player);
+        buffer.putInt(level);
+        buffer.putInt(won ? WON : 0);
+    }
+
+    // Fills in the checksum of every record from offset to the buffer's position
+    private static void seal(ByteBuffer buffer, int offset, CRC32C crc) {
+        for (int record = offset; record < buffer.position(); record += RECORD_SIZE) {
+            crc.reset();
+            crc.update(buffer.array(), record + 4, RECORD_SIZE - 4);
+            buffer.putInt(record, (int) crc.getValue());
+        }
+    }
+
+    private void replay() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            // New, or a header cut short, so nothing was ever logged
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            putHeader(header);
+            header.flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            channel.position(HEADER_SIZE);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(REPLAY_BUFFER - REPLAY_BUFFER % RECORD_SIZE);
+        buffer.limit(HEADER_SIZE);
+        readFully(buffer, 0);
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD_SIZE) {
+            throw new IOException("Not a leaderboard log");
+        }
+
+        CRC32C crc = new CRC32C();
+        long position = HEADER_SIZE;
+        replay:
+        while (position + RECORD_SIZE <= size) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (size - position) / RECORD_SIZE * RECORD_SIZE));
+            readFully(buffer, position);
+            for (int offset = 0; offset < buffer.limit(); offset += RECORD_SIZE) {
+                crc.reset();
+                crc.update(buffer.array(), offset + 4, RECORD_SIZE - 4);
+                if (buffer.getInt(offset) != (int) crc.getValue()) break replay;
+                index(buffer.getLong(offset + 4), buffer.getInt(offset + 12), buffer.getInt(offset + 16),
+                      buffer.getInt(offset + 20), (buffer.getInt(offset + 24) & WON) != 0);
+                position += RECORD_SIZE;
+                logRecords++;
+            }
+        }
+        if (position < size) {
+            // A write cut short, and anything after it
+            System.err.println("Leaderboard " + file + ": dropped " + (size - position) + " bytes of a damaged tail");
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Leaderboard log ended early");
+            }
+        }
+    }
+
+    private static void putHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) RECORD_SIZE);
+        buffer.put(new byte[HEADER_SIZE - 8]);
+    }
+
+    private void write() {
+        CRC32C crc = new CRC32C();
+        try {
+            while (true) {
+                ByteBuffer batch;
+                Entry[] live = null;
+                long batchRecords;
+                long logged;
+                synchronized (this) {
+                    while (staging.position() == 0 && !closed) {
+                        wait();
+                    }
+                    if (staging.position() == 0) return;
+                    batchRecords = staging.position() / RECORD_SIZE;
+                    logged = logRecords;
+                    if (logged + batchRecords >= COMPACT_AFTER
+                            && logged + batchRecords > 2L * (topCount + levelBestCount)) {
+                        // What is staged is in the index already, so the rewrite covers it
+                        live = live();
+                    }
+                    batch = staging;
+                    staging = spare;
+                    spare = batch;
+                    // Room to stage again
+                    notifyAll();
+                }
+
+                boolean compacted = false;
+                if (live != null) {
+                    try {
+                        compact(live, crc);
+                        logged = live.length;
+                        compacted = true;
+                    } catch (IOException e) {
+                        // The old log is still there; the batch goes on the end of it
+                        System.err.println("Could not compact leaderboard " + file + ": " + e.getMessage());
+                    }
+                }
+                if (!compacted) {
+                    try {
+                        seal(batch, 0, crc);
+                        batch.flip();
+                        writeFully(channel, batch);
+                        channel.force(false);
+                        logged += batchRecords;
+                    } catch (IOException e) {
+                        System.err.println("Could not write leaderboard " + file + ": " + e.getMessage());
+                        // Back to the last whole record, so the next batch follows it
+                        try {
+                            channel.truncate(HEADER_SIZE + logged * RECORD_SIZE);
+                            channel.position(HEADER_SIZE + logged * RECORD_SIZE);
+                        } catch (IOException ignored) {
+                            // Replay cuts the log at the damage instead
+                        }
+                    }
+                }
+                batch.clear();
+                synchronized (this) {
+                    logRecords = logged;
+                    settled += batchRecords;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Only close() ends the writer
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Could not close leaderboard " + file + ": " + e.getMessage());
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // Replaces the log with one holding only the given results. The new log is
+    // complete on disk before it is moved over the old, so a crash leaves one
+    // or the other.
+    private void compact(Entry[] live, CRC32C crc) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + live.length * RECORD_SIZE);
+        putHeader(buffer);
+        for (Entry entry : live) {
+            putRecord(buffer, entry.time, entry.score, entry.player, entry.level, entry.won);
+        }
+        seal(buffer, HEADER_SIZE, crc);
+        buffer.flip();
+        try (FileChannel out = FileChannel.open(compactFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, buffer);
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(compactFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(compactFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        compactions++;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Shooting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Submits random results to a leaderboard from many threads at once, as
+// hosted sessions would, and reports submissions per second and how long a
+// submit takes. Then checks recovery: the log is reopened, once as written
+// and once with a torn record appended, and both times the index rebuilt
+// from it must match the one the submissions built.
+// Usage: LeaderboardBenchmark [--threads N] [--seconds S] [--file PATH] [--top N]
+public class LeaderboardBenchmark {
+    private static final int LATENCY_SAMPLES = 1 << 20;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threadCount = 8;
+        double seconds = 5;
+        Path file = null;
+        int capacity = Leaderboard.DEFAULT_CAPACITY;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--threads": threadCount = Integer.parseInt(value); i++; break;
+                case "--seconds": seconds = Double.parseDouble(value); i++; break;
+                case "--file": file = Paths.get(value); i++; break;
+                case "--top": capacity = Integer.parseInt(value); i++; break;
+                default:
+                    System.err.println("Usage: LeaderboardBenchmark [--threads N] [--seconds S] [--file PATH] [--top N]");
+                    System.exit(1);
+            }
+        }
+        boolean temporary = file == null;
+        if (temporary) {
+            file = Files.createTempDirectory("leaderboard").resolve("leaderboard.log");
+        }
+
+        Leaderboard leaderboard = new Leaderboard(file, capacity);
+        long before = leaderboard.submitted();
+        long[][] latencies = new long[threadCount][LATENCY_SAMPLES];
+        int[] sampled = new int[threadCount];
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(thread);
+                long[] samples = latencies[thread];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    int level = 1 + random.nextInt(30);
+                    int score = level * 100 + random.nextInt(level * 1000);
+                    long start = System.nanoTime();
+                    leaderboard.submit(thread, level, score, random.nextInt(3) != 0);
+                    samples[count & (LATENCY_SAMPLES - 1)] = System.nanoTime() - start;
+                    count++;
+                }
+                sampled[thread] = Math.min(count, LATENCY_SAMPLES);
+            }, "submitter-" + t);
+            threads[t].start();
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        leaderboard.flush();
+        long submitted = leaderboard.submitted() - before;
+
+        int total = 0;
+        for (int count : sampled) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int filled = 0;
+        for (int t = 0; t < threadCount; t++) {
+            System.arraycopy(latencies[t], 0, all, filled, sampled[t]);
+            filled += sampled[t];
+        }
+        Arrays.sort(all);
+
+        List<Leaderboard.Entry> top = leaderboard.top();
+        Leaderboard.Entry[] bests = new Leaderboard.Entry[32];
+        for (int level = 0; level < bests.length; level++) {
+            bests[level] = leaderboard.bestAt(level);
+        }
+        long logRecords = leaderboard.logRecords();
+        int compactions = leaderboard.compactions();
+        leaderboard.close();
+
+        System.out.printf(Locale.ROOT, "%d threads submitting for %.1f s%n", threadCount, elapsed);
+        System.out.printf(Locale.ROOT, "%d results: %.0f submissions/s%n", submitted, submitted / elapsed);
+        if (total > 0) {
+            System.out.printf(Locale.ROOT, "Submit us: p50 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                              all[index(total, 0.50)] / 1e3, all[index(total, 0.99)] / 1e3,
+                              all[index(total, 0.999)] / 1e3, all[total - 1] / 1e3);
+        }
+        System.out.printf(Locale.ROOT, "Log: %d records, %.1f KB, after %d compactions%n",
+                          logRecords, Files.size(file) / 1e3, compactions);
+        System.out.printf(Locale.ROOT, "Best: %s%n", top.isEmpty() ? "none" : describe(top.get(0)));
+
+        boolean ok = recovers(file, capacity, top, bests, "as written");
+        // A crash in the middle of a write leaves part of a record at the end
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[Leaderboard.RECORD_SIZE / 2]));
+        }
+        ok &= recovers(file, capacity, top, bests, "with a torn record");
+
+        if (temporary) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.getParent());
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean recovers(Path file, int capacity, List<Leaderboard.Entry> top,
+                                    Leaderboard.Entry[] bests, String label) throws IOException {
+        Leaderboard reopened = new Leaderboard(file, capacity);
+        boolean same = reopened.top().size() == top.size();
+        for (int i = 0; same && i < top.size(); i++) {
+            same = sameResult(reopened.top().get(i), top.get(i));
+        }
+        for (int level = 0; same && level < bests.length; level++) {
+            same = sameResult(reopened.bestAt(level), bests[level]);
+        }
+        System.out.printf(Locale.ROOT, "Recovery %s: %d records in %.2f ms, index %s%n", label,
+                          reopened.logRecords(), reopened.recoveryNanos() / 1e6, same ? "matches" : "DIFFERS");
+        reopened.close();
+        return same;
+    }
+
+    private static boolean sameResult(Leaderboard.Entry a, Leaderboard.Entry b) {
+        if (a == null || b == null) return a == b;
+        return a.time == b.time && a.score == b.score && a.player == b.player && a.level == b.level
+               && a.won == b.won;
+    }
+
+    private static String describe(Leaderboard.Entry entry) {
+        return entry.score + " by player " + entry.player + " at level " + entry.level;
+    }
+
+    private static int index(int length, double quantile) {
+        return Math.max(0, Math.min(length - 1, (int) Math.ceil(quantile * length) - 1));
+    }
+}
@@ -0,0 +1,172 @@
+package Shooting;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Starting layout of a level on the hexagonal grid.
+// Each cell holds 0 when empty, otherwise palette index + 1.
+public class Level {
+    public final int rows;
+    public final int cols;
+    public final byte[] cells;
+    public int colorCount;
+
+    public Level(int rows, int cols, int colorCount) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new byte[rows * cols];
+        this.colorCount = colorCount;
+    }
+
+    // Same distribution the game always used: top half of the grid, 75% fill
+    public static Level random(Random random, int rows, int cols, int colorCount) {
+        Level level = new Level(rows, cols, colorCount);
+        for (int row = 0; row < rows / 2; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (random.nextDouble() < 0.75) {
+                    level.set(row, col, random.nextInt(colorCount));
+                }
+            }
+        }
+        return level;
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return cells[row * cols + col] == 0;
+    }
+
+    // Palette index of the bubble in this cell, or -1 when empty
+    public int get(int row, int col) {
+        return cells[row * cols + col] - 1;
+    }
+
+    public void set(int row, int col, int colorIndex) {
+        cells[row * cols + col] = (byte) (colorIndex + 1);
+    }
+
+    public void clear(int row, int col) {
+        cells[row * cols + col] = 0;
+    }
+
+    public void clearAll() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    public int bubbleCount() {
+        int count = 0;
+        for (byte cell : cells) {
+            if (cell != 0) count++;
+        }
+        return count;
+    }
+
+    // Pixel position of a cell, matching the layout used by the game
+    public static int cellX(int row, int col) {
+        return col * BubbleShooterGame.BUBBLE_SIZE + (row % 2) * (BubbleShooterGame.BUBBLE_SIZE / 2)
+               + BubbleShooterGame.BUBBLE_SIZE;
+    }
+
+    public static int cellY(int row) {
+        return row * BubbleShooterGame.BUBBLE_SIZE + BubbleShooterGame.BUBBLE_SIZE + BubbleShooterGame.UI_HEIGHT;
+    }
+
+    // Cell of a bubble sitting on the grid, the inverse of cellX/cellY
+    public static int rowAt(int y) {
+        return (y - BubbleShooterGame.BUBBLE_SIZE - BubbleShooterGame.UI_HEIGHT) / BubbleShooterGame.BUBBLE_SIZE;
+    }
+
+    public static int colAt(int row, int x) {
+        return (x - BubbleShooterGame.BUBBLE_SIZE - (row % 2) * (BubbleShooterGame.BUBBLE_SIZE / 2))
+               / BubbleShooterGame.BUBBLE_SIZE;
+    }
+
+    // Fills out with the indices (row * cols + col) of the hex neighbours of a cell
+    // and returns how many were written. Odd rows are shifted half a bubble right.
+    public int neighbours(int row, int col, int[] out) {
+        int n = 0;
+        n = addNeighbour(row, col - 1, out, n);
+        n = addNeighbour(row, col + 1, out, n);
+        int left = (row % 2 == 0) ? col - 1 : col;
+        n = addNeighbour(row - 1, left, out, n);
+        n = addNeighbour(row - 1, left + 1, out, n);
+        n = addNeighbour(row + 1, left, out, n);
+        n = addNeighbour(row + 1, left + 1, out, n);
+        return n;
+    }
+
+    private int addNeighbour(int row, int col, int[] out, int n) {
+        if (row >= 0 && row < rows && col >= 0 && col < cols) {
+            out[n++] = row * cols + col;
+        }
+        return n;
+    }
+
+    // Size of the largest group of same-coloured touching bubbles
+    public int largestColorGroup() {
+        int largest = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (!isEmpty(row, col)) {
+                    largest = Math.max(largest, groupSize(row, col));
+                }
+            }
+        }
+        return largest;
+    }
+
+    // Number of same-coloured bubbles touching this cell's bubble, including itself
+    public int groupSize(int row, int col) {
+        int start = row * cols + col;
+        if (cells[start] == 0) return 0;
+
+        int[] stack = new int[cells.length];
+        int[] adjacent = new int[6];
+        boolean[] visited = new boolean[cells.length];
+        int size = 0;
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = true;
+        while (top > 0) {
+            int cell = stack[--top];
+            size++;
+            int count = neighbours(cell / cols, cell % cols, adjacent);
+            for (int i = 0; i < count; i++) {
+                int other = adjacent[i];
+                if (!visited[other] && cells[other] == cells[start]) {
+                    visited[other] = true;
+                    stack[top++] = other;
+                }
+            }
+        }
+        return size;
+    }
+
+    // True when every bubble hangs from the top row through its neighbours
+    public boolean isConnectedToTop() {
+        int[] stack = new int[cells.length];
+        int[] adjacent = new int[6];
+        boolean[] visited = new boolean[cells.length];
+        int top = 0;
+        int reached = 0;
+
+        for (int col = 0; col < cols; col++) {
+            if (cells[col] != 0) {
+                visited[col] = true;
+                stack[top++] = col;
+            }
+        }
+        while (top > 0) {
+            int cell = stack[--top];
+            reached++;
+            int count = neighbours(cell / cols, cell % cols, adjacent);
+            for (int i = 0; i < count; i++) {
+                int other = adjacent[i];
+                if (!visited[other] && cells[other] != 0) {
+                    visited[other] = true;
+                    stack[top++] = other;
+                }
+            }
+        }
+        return reached == bubbleCount();
+    }
+}
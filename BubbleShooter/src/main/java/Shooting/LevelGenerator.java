@@ -0,0 +1,187 @@
+package Shooting;
+
+import java.awt.Point;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+// Offline level pipeline: random candidate layouts are generated in parallel,
+// layouts with ready-made 3-matches or bubbles hanging in mid-air are thrown away,
+// and whatever is left is played by a quick bot that has to make real progress on it.
+public class LevelGenerator {
+    private static final int BATCH_SIZE = 64;
+    private static final int MAX_BATCHES = 200;
+
+    private final int maxShots;
+    private final double minCleared;
+    private final boolean parallel;
+
+    // A layout is accepted when the bot clears at least minCleared of its bubbles
+    // within maxShots without losing
+    public LevelGenerator(int maxShots, double minCleared) {
+        this(maxShots, minCleared, true);
+    }
+
+    // A sequential generator checks candidates on the calling thread only, for
+    // callers in the background that should not load the common fork/join pool.
+    // It accepts the same layouts as a parallel one.
+    public LevelGenerator(int maxShots, double minCleared, boolean parallel) {
+        this.maxShots = maxShots;
+        this.minCleared = minCleared;
+        this.parallel = parallel;
+    }
+
+    // Generates one accepted layout for each level number 1..count
+    public List<Level> generate(int count, long seed) {
+        List<Level> levels = new ArrayList<>(count);
+        for (int levelNumber = 1; levelNumber <= count; levelNumber++) {
+            levels.add(generateLevel(levelNumber, seed + levelNumber * 1_000_003L));
+        }
+        return levels;
+    }
+
+    public Level generateLevel(int levelNumber, long seed) {
+        for (int batch = 0; batch < MAX_BATCHES; batch++) {
+            long first = seed + (long) batch * BATCH_SIZE;
+
+            // Candidates are seeded by their position and findFirst keeps the lowest
+            // accepted seed, so the result does not depend on thread scheduling
+            LongStream candidates = LongStream.range(first, first + BATCH_SIZE);
+            OptionalLong accepted = (parallel ? candidates.parallel() : candidates)
+                .filter(candidateSeed -> isAccepted(candidate(levelNumber, candidateSeed), levelNumber, candidateSeed))
+                .findFirst();
+
+            if (accepted.isPresent()) {
+                return candidate(levelNumber, accepted.getAsLong());
+            }
+        }
+        throw new IllegalStateException("No playable layout found for level " + levelNumber);
+    }
+
+    private boolean isAccepted(Level level, int levelNumber, long seed) {
+        return isWellFormed(level) && passesBot(level, levelNumber, seed);
+    }
+
+    // Random 75% fill of the top half like the in-game layout, but each bubble
+    // prefers a colour that does not complete a group of three with its neighbours
+    private static Level candidate(int levelNumber, long seed) {
+        Random random = new Random(seed);
+        int colorCount = BubbleShooterGame.colorsForLevel(levelNumber);
+        Level level = new Level(BubbleShooterGame.ROWS, BubbleShooterGame.COLS, colorCount);
+
+        for (int row = 0; row < level.rows / 2; row++) {
+            for (int col = 0; col < level.cols; col++) {
+                if (random.nextDouble() >= 0.75) continue;
+
+                int first = random.nextInt(colorCount);
+                for (int attempt = 0; attempt < colorCount; attempt++) {
+                    level.set(row, col, (first + attempt) % colorCount);
+                    if (level.groupSize(row, col) < 3) break;
+                }
+            }
+        }
+        return level;
+    }
+
+    // No free 3-matches and no islands that would drop on the first pop
+    static boolean isWellFormed(Level level) {
+        return level.bubbleCount() > 0
+            && level.largestColorGroup() < 3
+            && level.isConnectedToTop();
+    }
+
+    boolean passesBot(Level level, int levelNumber, long seed) {
+        BubbleShooterGame game = playBot(level, levelNumber, seed);
+        int start = level.bubbleCount();
+        double cleared = (start - game.board.bubbleCount()) / (double) start;
+        return !game.gameOver && (game.gameWon || cleared >= minCleared);
+    }
+
+    // Plays the layout with a greedy bot in a headless game, using the real shot,
+    // collision and matching code. The bot tries a fan of angles, looks where the
+    // aiming line ends and fires at the spot touching the most bubbles of its colour.
+    BubbleShooterGame playBot(Level level, int levelNumber, long seed) {
+        BubbleShooterGame game = new BubbleShooterGame(new Random(seed), false);
+        game.level = levelNumber;
+        game.startLevel(level);
+
+        int startX = BubbleShooterGame.WINDOW_WIDTH / 2;
+        int startY = BubbleShooterGame.SHOOTER_Y + BubbleShooterGame.BUBBLE_SIZE / 2;
+
+        for (int shot = 0; shot < maxShots; shot++) {
+            if (game.gameWon || game.gameOver || game.nextBubble == null) break;
+
+            int bestTargetX = startX;
+            int bestTargetY = startY - 100;
+            int bestScore = Integer.MIN_VALUE;
+            for (int degrees = 15; degrees <= 165; degrees += 3) {
+                double angle = Math.toRadians(degrees);
+                int targetX = startX + (int) (Math.cos(angle) * 100);
+                int targetY = startY - (int) (Math.sin(angle) * 100);
+
+                List<Point> trajectory = game.calculateTrajectory(startX, startY, targetX, targetY);
+                if (trajectory.isEmpty()) continue;
+
+                Point end = trajectory.get(trajectory.size() - 1);
+                int score = landingScore(game, end) * 1000 - end.y;
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestTargetX = targetX;
+                    bestTargetY = targetY;
+                }
+            }
+
+            if (!game.fireAt(bestTargetX, bestTargetY)) break;
+            for (int tick = 0; tick < 500 && !game.shootingBubbles.isEmpty(); tick++) {
+                game.updateGame();
+            }
+        }
+        return game;
+    }
+
+    // Same-coloured neighbours around the landing spot, minus the other colours
+    private static int landingScore(BubbleShooterGame game, Point end) {
+        int reach = BubbleShooterGame.BUBBLE_SIZE + 8;
+        int score = 0;
+        Level board = game.board;
+        for (int row = 0; row < board.rows; row++) {
+            for (int col = 0; col < board.cols; col++) {
+                if (board.isEmpty(row, col)) continue;
+                double dx = end.x - (Level.cellX(row, col) + BubbleShooterGame.BUBBLE_SIZE / 2);
+                double dy = end.y - (Level.cellY(row) + BubbleShooterGame.BUBBLE_SIZE / 2);
+                if (dx * dx + dy * dy <= reach * reach) {
+                    score += board.get(row, col) == game.nextBubble.color ? 2 : -1;
+                }
+            }
+        }
+        return score;
+    }
+
+    // Usage: LevelGenerator <output.pack> [levels] [seed] [maxShots] [minCleared]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LevelGenerator <output.pack> [levels] [seed] [maxShots] [minCleared]");
+            System.exit(1);
+        }
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        Path output = Paths.get(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int maxShots = args.length > 3 ? Integer.parseInt(args[3]) : 120;
+        double minCleared = args.length > 4 ? Double.parseDouble(args[4]) : 0.4;
+
+        long start = System.nanoTime();
+        List<Level> levels = new LevelGenerator(maxShots, minCleared).generate(count, seed);
+        LevelPack.write(output, levels, BubbleShooterGame.ROWS, BubbleShooterGame.COLS);
+
+        System.out.printf("Wrote %d levels to %s in %d ms%n",
+                          levels.size(), output, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,89 @@
+package Shooting;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Binary level pack. Layout:
+//   header (HEADER_SIZE bytes)
+//     int   magic "BSLP"
+//     short version
+//     byte  rows, byte cols
+//     int   level count
+//     int   offset of the index
+//     rest reserved (zero)
+//   index: one int per level, absolute offset of its record
+//   record per level:
+//     byte colour count
+//     byte number of rows stored (trailing empty rows are dropped)
+//     cells of the stored rows packed two per byte (high nibble first)
+public class LevelPack {
+    public static final int MAGIC = 0x42534C50; // "BSLP"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 32;
+
+    public static void write(Path file, List<Level> levels, int rows, int cols) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(rows);
+            out.writeByte(cols);
+            out.writeInt(levels.size());
+            out.writeInt(HEADER_SIZE);
+            out.write(new byte[HEADER_SIZE - 16]);
+
+            // Record sizes are known up front, so the index can be written first
+            long offset = HEADER_SIZE + 4L * levels.size();
+            for (Level level : levels) {
+                if (level.rows != rows || level.cols != cols) {
+                    throw new IllegalArgumentException("Level size " + level.rows + "x" + level.cols
+                                                       + " does not match pack size " + rows + "x" + cols);
+                }
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Level pack too large: " + levels.size() + " levels");
+                }
+                out.writeInt((int) offset);
+                offset += recordSize(usedRows(level), cols);
+            }
+
+            byte[] packed = new byte[packedSize(rows, cols)];
+            for (Level level : levels) {
+                int usedRows = usedRows(level);
+                int length = packedSize(usedRows, cols);
+                pack(level.cells, usedRows * cols, packed);
+                out.writeByte(level.colorCount);
+                out.writeByte(usedRows);
+                out.write(packed, 0, length);
+            }
+        }
+    }
+
+    static int recordSize(int usedRows, int cols) {
+        return 2 + packedSize(usedRows, cols);
+    }
+
+    static int packedSize(int rows, int cols) {
+        return (rows * cols + 1) / 2;
+    }
+
+    // Rows up to and including the last one holding a bubble
+    static int usedRows(Level level) {
+        for (int row = level.rows - 1; row >= 0; row--) {
+            for (int col = 0; col < level.cols; col++) {
+                if (!level.isEmpty(row, col)) return row + 1;
+            }
+        }
+        return 0;
+    }
+
+    static void pack(byte[] cells, int count, byte[] packed) {
+        for (int i = 0; i < (count + 1) / 2; i++) {
+            int high = cells[2 * i];
+            int low = 2 * i + 1 < count ? cells[2 * i + 1] : 0;
+            packed[i] = (byte) ((high << 4) | low);
+        }
+    }
+}
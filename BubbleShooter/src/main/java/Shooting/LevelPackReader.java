@@ -0,0 +1,126 @@
+package Shooting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads levels out of a memory-mapped level pack (see LevelPack for the layout).
+// Opening only maps the file; each read looks the record up in the index and
+// decodes its nibbles straight into the caller's Level, so switching levels
+// costs the same whether the pack holds ten levels or a million.
+public class LevelPackReader {
+    public static final String PACK_PROPERTY = "bubbleshooter.levels";
+    public static final String DEFAULT_PACK = "levels.pack";
+
+    public final int rows;
+    public final int cols;
+    private final int count;
+    private final int indexOffset;
+    private final ByteBuffer buffer;
+
+    private LevelPackReader(MappedByteBuffer buffer, Path file) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < LevelPack.HEADER_SIZE || buffer.getInt(0) != LevelPack.MAGIC) {
+            throw new IOException("Not a level pack: " + file);
+        }
+        int version = buffer.getShort(4);
+        if (version != LevelPack.VERSION) {
+            throw new IOException("Unsupported level pack version " + version);
+        }
+        rows = buffer.get(6) & 0xFF;
+        cols = buffer.get(7) & 0xFF;
+        count = buffer.getInt(8);
+        indexOffset = buffer.getInt(12);
+        if (count < 0 || indexOffset + 4L * count > buffer.capacity()) {
+            throw new IOException("Corrupt level pack index: " + file);
+        }
+    }
+
+    public static LevelPackReader open(Path file) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LevelPackReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        }
+    }
+
+    // Pack named by -Dbubbleshooter.levels, or levels.pack in the working directory.
+    // Returns null when there is none so the game falls back to random layouts.
+    public static LevelPackReader openDefault() {
+        Path file = Paths.get(System.getProperty(PACK_PROPERTY, DEFAULT_PACK));
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            return open(file);
+        } catch (IOException e) {
+            System.err.println("Could not load level pack " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Level read(int index) throws IOException {
+        Level level = new Level(rows, cols, 0);
+        read(index, level);
+        return level;
+    }
+
+    // Decodes level number index (0-based) into the given Level, overwriting all its cells.
+    // A record that lies outside the file or holds colours the level does not have is
+    // damage, and leaves the Level half written.
+    public void read(int index, Level into) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Level " + index + " not in pack of " + count);
+        }
+        if (into.rows != rows || into.cols != cols) {
+            throw new IllegalArgumentException("Level size " + into.rows + "x" + into.cols
+                                               + " does not match pack size " + rows + "x" + cols);
+        }
+
+        int offset = buffer.getInt(indexOffset + 4 * index);
+        if (offset < LevelPack.HEADER_SIZE || offset + 2L > buffer.capacity()) {
+            throw new IOException("Corrupt level pack: level " + index + " at offset " + offset
+                                  + ", outside the pack's " + buffer.capacity() + " bytes");
+        }
+        int colorCount = buffer.get(offset) & 0xFF;
+        int storedRows = buffer.get(offset + 1) & 0xFF;
+        if (colorCount == 0 || colorCount > Palette.BUBBLES.size()) {
+            throw new IOException("Corrupt level pack: level " + index + " has " + colorCount
+                                  + " colours, the palette has " + Palette.BUBBLES.size());
+        }
+        if (storedRows > rows) {
+            throw new IOException("Corrupt level pack: level " + index + " stores " + storedRows
+                                  + " rows of " + rows);
+        }
+        int data = offset + 2;
+        int stored = storedRows * cols;
+        if (data + (long) LevelPack.packedSize(storedRows, cols) > buffer.capacity()) {
+            throw new IOException("Corrupt level pack: level " + index + " runs past the end of the pack");
+        }
+
+        into.colorCount = colorCount;
+        byte[] cells = into.cells;
+        for (int i = 0; i < stored; i += 2) {
+            int b = buffer.get(data + i / 2);
+            int high = (b >> 4) & 0x0F;
+            int low = i + 1 < stored ? b & 0x0F : 0;
+            // A cell is 0 for empty or a colour index + 1
+            if (high > colorCount || low > colorCount) {
+                throw new IOException("Corrupt level pack: level " + index + " has a colour past its "
+                                      + colorCount + " near cell " + i);
+            }
+            cells[i] = (byte) high;
+            if (i + 1 < stored) {
+                cells[i + 1] = (byte) low;
+            }
+        }
+        Arrays.fill(cells, stored, cells.length, (byte) 0);
+    }
+}
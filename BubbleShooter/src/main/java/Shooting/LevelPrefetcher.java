@@ -0,0 +1,75 @@
+package Shooting;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Prepares the next level's layout on a background thread while the current
+// level is being played. The finished layout is parked in a single slot tagged
+// with its level number and handed over with take(), which never blocks.
+class LevelPrefetcher {
+    private static final int BOT_SHOTS = 120;
+    private static final double BOT_MIN_CLEARED = 0.4;
+
+    private static final class Prepared {
+        final int levelNumber;
+        final Level layout;
+
+        Prepared(int levelNumber, Level layout) {
+            this.levelNumber = levelNumber;
+            this.layout = layout;
+        }
+    }
+
+    private final LevelPackReader levelPack;
+    private final LevelGenerator generator;
+    private final AtomicReference<Prepared> ready = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "level-prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // levelPack may be null; levels past the end of the pack are generated
+    LevelPrefetcher(LevelPackReader levelPack) {
+        this.levelPack = levelPack;
+        // Sequential: a parallel one would run on the common pool at normal
+        // priority, whatever the priority of this thread
+        this.generator = new LevelGenerator(BOT_SHOTS, BOT_MIN_CLEARED, false);
+    }
+
+    // Starts preparing the given level. Tasks run one at a time in submission
+    // order, so a newer request always lands after any older one it replaces.
+    void prefetch(int levelNumber, long seed) {
+        executor.execute(() -> ready.set(new Prepared(levelNumber, build(levelNumber, seed))));
+    }
+
+    // The prepared layout for this level, or null if it is not ready yet
+    Level take(int levelNumber) {
+        Prepared prepared = ready.get();
+        if (prepared != null && prepared.levelNumber == levelNumber && ready.compareAndSet(prepared, null)) {
+            return prepared.layout;
+        }
+        return null;
+    }
+
+    private Level build(int levelNumber, long seed) {
+        // Pack reads use absolute gets only, so sharing the reader with the game is safe
+        if (levelPack != null && levelNumber <= levelPack.size()) {
+            try {
+                return levelPack.read(levelNumber - 1);
+            } catch (IOException e) {
+                System.err.println("Skipping level " + levelNumber + ": " + e.getMessage());
+            }
+        }
+        try {
+            return generator.generateLevel(levelNumber, seed);
+        } catch (IllegalStateException e) {
+            return Level.random(new Random(seed), BubbleShooterGame.ROWS, BubbleShooterGame.COLS,
+                                BubbleShooterGame.colorsForLevel(levelNumber));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package Shooting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load test for GameServer over loopback: thousands of simulated players in
+// versus pairs, each on its own connection and thread, shooting at random
+// upward points until their match ends. Every tenth shot aims downward, or so
+// near the horizontal that it could never reach the board, and must be
+// rejected. Reports shot round trips and what the server decided.
+// Starts a server in this JVM unless --port names one already running.
+// Usage: LoopbackClients [--clients N] [--port N] [--max-shots N] [--seed N]
+public class LoopbackClients {
+    private static final long CLIENT_STACK = 256 * 1024;
+    private static final int INVALID_SHOT_INTERVAL = 10;
+
+    private final int port;
+    private final int maxShots;
+    private final AtomicLong shots = new AtomicLong();
+    private final AtomicLong invalidShots = new AtomicLong();
+    private final AtomicLong invalidRejected = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicInteger matchEnds = new AtomicInteger();
+    private final AtomicInteger wins = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    // Every shot's round trip in nanoseconds, client by client
+    private final long[][] roundTrips;
+    private final int[] roundTripCounts;
+
+    LoopbackClients(int port, int clients, int maxShots) {
+        this.port = port;
+        this.maxShots = maxShots;
+        roundTrips = new long[clients][maxShots];
+        roundTripCounts = new int[clients];
+    }
+
+    // One player: joins match client / 2 + 1 with its neighbour, or alone when
+    // it has none, and plays until the match ends or it runs out of shots
+    private void play(int client, boolean alone, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            GameProtocol.writeJoin(out, alone ? 0 : client / 2 + 1);
+
+            GameProtocol.Result result = new GameProtocol.Result();
+            byte[] board = new byte[GameProtocol.BOARD_BYTES];
+            boolean started = false;
+            boolean ended = false;
+            int player = -1;
+            long[] trips = roundTrips[client];
+            int count = 0;
+            while (!ended && count < maxShots) {
+                if (started) {
+                    boolean invalid = count % INVALID_SHOT_INTERVAL == INVALID_SHOT_INTERVAL - 1;
+                    int x = 40 + random.nextInt(BubbleShooterGame.WINDOW_WIDTH - 80);
+                    int y = BubbleShooterGame.SHOOTER_Y - 150 - random.nextInt(350);
+                    if (invalid && random.nextBoolean()) {
+                        // Downward
+                        y = BubbleShooterGame.WINDOW_HEIGHT;
+                    } else if (invalid) {
+                        // Upward, but too flat to ever reach the board
+                        x = random.nextBoolean() ? 20 : BubbleShooterGame.WINDOW_WIDTH - 20;
+                        y = BubbleShooterGame.SHOOTER_Y + BubbleShooterGame.BUBBLE_SIZE / 2 - 10;
+                    }
+                    long sent = System.nanoTime();
+                    GameProtocol.writeShot(out, x, y);
+                    // The match may end before the result comes back
+                    byte type;
+                    while ((type = in.readByte()) == GameProtocol.MATCH_END) {
+                        ended = true;
+                        readMatchEnd(in, player);
+                    }
+                    if (type != GameProtocol.RESULT) throw new IOException("Unexpected message " + type);
+                    result.read(in);
+                    trips[count++] = System.nanoTime() - sent;
+                    bytesReceived.addAndGet(GameProtocol.RESULT_BYTES);
+                    shots.incrementAndGet();
+                    if (invalid) {
+                        invalidShots.incrementAndGet();
+                        // Or turned away because the match has just ended
+                        if (result.outcome != GameProtocol.ACCEPTED) {
+                            invalidRejected.incrementAndGet();
+                        }
+                    }
+                    // Won or lost: the match end follows, unless it came already
+                    if (result.state != GameProtocol.PLAYING && !ended) {
+                        if (in.readByte() != GameProtocol.MATCH_END) throw new IOException("Expected match end");
+                        ended = true;
+                        readMatchEnd(in, player);
+                    }
+                } else {
+                    byte type = in.readByte();
+                    if (type == GameProtocol.START) {
+                        player = in.readByte();
+                        in.readByte();
+                        in.readByte();
+                        in.readFully(board);
+                        bytesReceived.addAndGet(4 + board.length);
+                        started = true;
+                    } else if (type == GameProtocol.MATCH_END) {
+                        ended = true;
+                        readMatchEnd(in, player);
+                    } else {
+                        throw new IOException("Unexpected message " + type);
+                    }
+                }
+            }
+            roundTripCounts[client] = count;
+        }
+    }
+
+    private void readMatchEnd(DataInputStream in, int player) throws IOException {
+        byte winner = in.readByte();
+        in.readInt();
+        in.readInt();
+        bytesReceived.addAndGet(10);
+        matchEnds.incrementAndGet();
+        if (winner == player) {
+            wins.incrementAndGet();
+        }
+    }
+
+    private void run(int clients, long seed) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            boolean alone = client == clients - 1 && clients % 2 == 1;
+            Thread thread = new Thread(null, () -> {
+                try {
+                    play(client, alone, seed + client);
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                    System.err.println("Client " + client + " failed: " + e);
+                } finally {
+                    done.countDown();
+                }
+            }, "loopback-client-" + client, CLIENT_STACK);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        int clients = 2000;
+        int port = 0;
+        int maxShots = 200;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(value); i++; break;
+                case "--port": port = Integer.parseInt(value); i++; break;
+                case "--max-shots": maxShots = Integer.parseInt(value); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                default:
+                    System.err.println("Usage: LoopbackClients [--clients N] [--port N] [--max-shots N] [--seed N]");
+                    System.exit(1);
+            }
+        }
+
+        GameServer server = null;
+        if (port == 0) {
+            server = new GameServer(0, seed);
+            server.start();
+            port = server.port();
+        }
+        LoopbackClients load = new LoopbackClients(port, clients, maxShots);
+        long start = System.nanoTime();
+        load.run(clients, seed);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        for (int count : load.roundTripCounts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int filled = 0;
+        for (int i = 0; i < clients; i++) {
+            System.arraycopy(load.roundTrips[i], 0, all, filled, load.roundTripCounts[i]);
+            filled += load.roundTripCounts[i];
+        }
+        Arrays.sort(all);
+
+        System.out.printf(Locale.ROOT, "%d clients, %d matches, on loopback port %d%n",
+                          clients, (clients + 1) / 2, port);
+        System.out.printf(Locale.ROOT, "%d shots in %.2f s: %.0f shots/s, %.1f KB/s from the server%n",
+                          load.shots.get(), elapsed, load.shots.get() / elapsed, load.bytesReceived.get() / elapsed / 1e3);
+        if (total > 0) {
+            System.out.printf(Locale.ROOT, "Round trip ms: p50 %.3f, p99 %.3f, max %.3f%n",
+                              all[index(total, 0.50)] / 1e6, all[index(total, 0.99)] / 1e6, all[total - 1] / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "Invalid shots rejected: %d of %d%n",
+                          load.invalidRejected.get(), load.invalidShots.get());
+        System.out.printf(Locale.ROOT, "Match ends seen: %d, won: %d, clients failed: %d%n",
+                          load.matchEnds.get(), load.wins.get(), load.failures.get());
+        if (server != null) {
+            System.out.printf(Locale.ROOT, "Server: %d shots accepted, %d rejected, %d matches decided%n",
+                              server.shotsAccepted(), server.shotsRejected(), server.matchesDecided());
+            server.close();
+        }
+        if (load.failures.get() > 0 || load.invalidRejected.get() != load.invalidShots.get()) {
+            System.exit(1);
+        }
+    }
+
+    private static int index(int length, double quantile) {
+        return Math.max(0, Math.min(length - 1, (int) Math.ceil(quantile * length) - 1));
+    }
+}
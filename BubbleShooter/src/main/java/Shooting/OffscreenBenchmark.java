@@ -0,0 +1,260 @@
+package Shooting;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+// Renders a seeded, scripted game into an offscreen image without a display and
+// reports frame-time percentiles, per-phase paint times and allocation per frame.
+// With --max-alloc it doubles as an allocation check: it exits with status 1 when
+// any steady-state frame (one where no board settled, so no shot landed and no
+// level started) allocates more than the given number of bytes.
+// The quality governor is pinned at full unless --quality says otherwise; with
+// auto it adapts to the frame times it sees, as in the game. --scale renders
+// into a canvas that many times the window's size, as a scaled screen would.
+// --tiles sets the number of workers for the tiled renderer. --events
+// subscribes a counter to the game's event bus, to see what the bus costs the
+// game thread. Allocation is counted on the painting thread only, not on the
+// tile workers or the event dispatcher.
+// Usage: OffscreenBenchmark [--frames N] [--warmup N] [--seed N] [--renderer legacy|cached|bloom|tiled]
+//                           [--particles N] [--quality auto|full|no_glow|...] [--scale S]
+//                           [--tiles N] [--events] [--max-alloc BYTES]
+public class OffscreenBenchmark {
+    private final BubbleShooterGame game;
+    private final ScriptedPlayer player;
+    private final BufferedImage canvas;
+    private final com.sun.management.ThreadMXBean threads;
+
+    OffscreenBenchmark(long seed, RenderMode renderMode, int particles, String quality, float scale) {
+        game = new BubbleShooterGame(new Random(seed), false);
+        player = new ScriptedPlayer(game);
+        game.renderMode = renderMode;
+        game.quality.configure(quality);
+        game.applyQuality();
+        if (particles >= 0) {
+            game.setParticleCount(particles);
+        }
+        int width = Math.round(BubbleShooterGame.WINDOW_WIDTH * scale);
+        int height = Math.round(BubbleShooterGame.WINDOW_HEIGHT * scale);
+        game.setSize(width, height);
+        canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    Report run(int warmup, int frames) {
+        Report report = new Report(frames);
+        long threadId = Thread.currentThread().getId();
+        Graphics2D g2d = canvas.createGraphics();
+        try {
+            for (int frame = 0; frame < warmup + frames; frame++) {
+                // Clicking through the end screen starts a level, so count from before the script
+                int settledBefore = game.settledBoards;
+                player.play(frame);
+
+                long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                game.tick();
+                game.paintComponent(g2d);
+                long elapsed = System.nanoTime() - start;
+                long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+                if (frame >= warmup) {
+                    boolean steady = game.settledBoards == settledBefore;
+                    report.record(frame - warmup, elapsed, allocated, steady, game.timings);
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return report;
+    }
+
+    // Stops the game's own threads, such as the tile workers
+    void close() {
+        game.close();
+    }
+
+    // Counts what the event bus delivers, on its dispatcher thread
+    static class EventCounter implements GameEventBus.Subscriber {
+        volatile int popped, dropped, started, won, lost;
+
+        @Override
+        public void bubblesPopped(int level, int count, int points, int score) {
+            popped++;
+        }
+
+        @Override
+        public void bubblesDropped(int level, int count, int points, int score) {
+            dropped++;
+        }
+
+        @Override
+        public void levelStarted(int level, int score) {
+            started++;
+        }
+
+        @Override
+        public void levelWon(int level, int score) {
+            won++;
+        }
+
+        @Override
+        public void gameOver(int level, int score) {
+            lost++;
+        }
+    }
+
+    static class Report {
+        final long[] frameNanos;
+        final long[] updateNanos;
+        final long[] paintNanos;
+        final long[][] phaseNanos;
+        final long[] allocatedBytes;
+        final boolean[] steady;
+
+        Report(int frames) {
+            frameNanos = new long[frames];
+            updateNanos = new long[frames];
+            paintNanos = new long[frames];
+            phaseNanos = new long[FrameTimings.PHASES.length][frames];
+            allocatedBytes = new long[frames];
+            steady = new boolean[frames];
+        }
+
+        void record(int frame, long elapsed, long allocated, boolean steadyFrame, FrameTimings timings) {
+            frameNanos[frame] = elapsed;
+            updateNanos[frame] = timings.updateNanos;
+            paintNanos[frame] = timings.paintNanos;
+            for (int phase = 0; phase < phaseNanos.length; phase++) {
+                phaseNanos[phase][frame] = timings.phaseNanos[phase];
+            }
+            allocatedBytes[frame] = allocated;
+            steady[frame] = steadyFrame;
+        }
+
+        void print() {
+            System.out.printf(Locale.ROOT, "%-16s %10s %10s %10s%n", "", "p50 ms", "p99 ms", "max ms");
+            printTimes("Frame", frameNanos);
+            printTimes("  Update", updateNanos);
+            printTimes("  Paint", paintNanos);
+            for (FrameTimings.Phase phase : FrameTimings.PHASES) {
+                printTimes("    " + phase.label, phaseNanos[phase.ordinal()]);
+            }
+            System.out.printf(Locale.ROOT, "%nAllocated bytes/frame: mean %.0f, p50 %d, p99 %d, max %d%n",
+                              Arrays.stream(allocatedBytes).average().orElse(0),
+                              percentile(allocatedBytes, 0.50), percentile(allocatedBytes, 0.99),
+                              percentile(allocatedBytes, 1.0));
+            System.out.printf(Locale.ROOT, "Steady-state frames: %d of %d, %d allocating, max %d bytes%n",
+                              steadyFrames(), steady.length, allocatingSteadyFrames(0), maxSteadyAllocation());
+        }
+
+        int steadyFrames() {
+            int count = 0;
+            for (boolean s : steady) {
+                if (s) count++;
+            }
+            return count;
+        }
+
+        int allocatingSteadyFrames(long limit) {
+            int count = 0;
+            for (int i = 0; i < steady.length; i++) {
+                if (steady[i] && allocatedBytes[i] > limit) count++;
+            }
+            return count;
+        }
+
+        long maxSteadyAllocation() {
+            long max = 0;
+            for (int i = 0; i < steady.length; i++) {
+                if (steady[i]) max = Math.max(max, allocatedBytes[i]);
+            }
+            return max;
+        }
+
+        private static void printTimes(String label, long[] nanos) {
+            System.out.printf(Locale.ROOT, "%-16s %10.3f %10.3f %10.3f%n", label,
+                              percentile(nanos, 0.50) / 1e6, percentile(nanos, 0.99) / 1e6,
+                              percentile(nanos, 1.0) / 1e6);
+        }
+
+        static long percentile(long[] values, double quantile) {
+            if (values.length == 0) return 0;
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int frames = 1000;
+        int warmup = 200;
+        long seed = 42;
+        RenderMode renderMode = RenderMode.CACHED;
+        long maxAlloc = -1;
+        int particles = -1;
+        String quality = "full";
+        float scale = 1;
+        EventCounter events = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--frames": frames = Integer.parseInt(value); i++; break;
+                case "--warmup": warmup = Integer.parseInt(value); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                case "--renderer": renderMode = RenderMode.valueOf(value.toUpperCase(Locale.ROOT)); i++; break;
+                case "--max-alloc": maxAlloc = Long.parseLong(value); i++; break;
+                case "--particles": particles = Integer.parseInt(value); i++; break;
+                case "--quality": quality = value; i++; break;
+                case "--scale": scale = Float.parseFloat(value); i++; break;
+                case "--tiles": System.setProperty(TiledRenderer.THREADS_PROPERTY, value); i++; break;
+                case "--events": events = new EventCounter(); break;
+                default:
+                    System.err.println("Usage: OffscreenBenchmark [--frames N] [--warmup N] [--seed N] "
+                                       + "[--renderer " + Arrays.toString(RenderMode.values()).toLowerCase(Locale.ROOT) + "] "
+                                       + "[--particles N] [--quality auto|full|no_glow|no_pulse|"
+                                       + "fewer_particles|no_antialiasing] [--scale S] [--tiles N] [--events] [--max-alloc BYTES]");
+                    System.exit(1);
+            }
+        }
+
+        OffscreenBenchmark benchmark = new OffscreenBenchmark(seed, renderMode, particles, quality, scale);
+        if (events != null) {
+            benchmark.game.events.subscribe(events);
+        }
+        System.out.printf("Renderer %s, %d frames after %d warmup, seed %d, %d particles, scale %s%n%n",
+                          renderMode.name().toLowerCase(Locale.ROOT), frames, warmup, seed,
+                          benchmark.game.particleCount(), scale);
+        Report report = benchmark.run(warmup, frames);
+        report.print();
+        System.out.printf("Quality at the end: %s%n", benchmark.game.quality.tier().label);
+        if (events != null) {
+            benchmark.game.events.flush(1_000_000_000L);
+            System.out.printf("Events delivered: %d pops, %d drops, %d levels started, %d won, %d lost; %d dropped%n",
+                              events.popped, events.dropped, events.started, events.won, events.lost,
+                              benchmark.game.events.dropped());
+        }
+        if (renderMode == RenderMode.TILED) {
+            System.out.printf("Tile workers: %d%n", Integer.getInteger(TiledRenderer.THREADS_PROPERTY,
+                                                                  Runtime.getRuntime().availableProcessors()));
+        }
+        benchmark.close();
+
+        if (maxAlloc >= 0) {
+            int failing = report.allocatingSteadyFrames(maxAlloc);
+            if (failing > 0) {
+                System.out.printf("%nFAILED: %d steady-state frames allocated more than %d bytes%n", failing, maxAlloc);
+                System.exit(1);
+            }
+            System.out.printf("%nOK: no steady-state frame allocated more than %d bytes%n", maxAlloc);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package Shooting;
+
+import java.awt.Color;
+
+// The bubble colours and every variant of them the renderers draw with,
+// computed once and shared by all games. Boards and effects refer to a colour
+// by its index here, so a cell is one byte and drawing it never has to derive
+// a colour: the brighter and darker gradient stops and each colour at all 256
+// alphas are looked up rather than made. Nothing in it changes after
+// construction, so any number of games and threads can read it at once.
+final class Palette {
+    static final Palette BUBBLES = new Palette(
+        new Color(255, 87, 90),   // Red
+        new Color(87, 165, 255),  // Blue
+        new Color(87, 255, 87),   // Green
+        new Color(255, 215, 87),  // Yellow
+        new Color(255, 140, 87),  // Orange
+        new Color(255, 87, 245),  // Pink
+        new Color(87, 255, 255),  // Cyan
+        new Color(200, 87, 255)   // Purple
+    );
+
+    private final Color[] colors;
+    private final Color[] highlights;
+    private final Color[] brighter;
+    private final Color[] darker;
+    private final Color[][] shades;
+
+    private Palette(Color... colors) {
+        this.colors = colors.clone();
+        int size = colors.length;
+        highlights = new Color[size];
+        brighter = new Color[size];
+        darker = new Color[size];
+        shades = new Color[size][];
+        for (int i = 0; i < size; i++) {
+            brighter[i] = colors[i].brighter();
+            highlights[i] = brighter[i].brighter();
+            darker[i] = colors[i].darker();
+            shades[i] = shades(colors[i]);
+        }
+    }
+
+    int size() {
+        return colors.length;
+    }
+
+    Color color(int index) {
+        return colors[index];
+    }
+
+    // color.brighter()
+    Color brighter(int index) {
+        return brighter[index];
+    }
+
+    // color.brighter().brighter(), the centre of a bubble's gradient
+    Color highlight(int index) {
+        return highlights[index];
+    }
+
+    // color.darker()
+    Color darker(int index) {
+        return darker[index];
+    }
+
+    // The colour with the given alpha, 0 to 255
+    Color shade(int index, int alpha) {
+        return shades[index][alpha];
+    }
+
+    // The colour at every alpha from 0 to 255
+    static Color[] shades(Color color) {
+        Color[] shades = new Color[256];
+        for (int alpha = 0; alpha < shades.length; alpha++) {
+            shades[alpha] = new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha);
+        }
+        return shades;
+    }
+}
@@ -0,0 +1,131 @@
+package Shooting;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.Random;
+
+// Ambient background particles kept as parallel arrays rather than one object
+// each. Updating is one pass over the float arrays, and the cached renderer
+// blends every particle straight into an int[] raster instead of issuing a
+// fill per particle, so the field scales to 100k particles.
+class ParticleField {
+    private static final float SPEED = 0.5f;
+
+    final int count;
+    // Particles moved and drawn, the first shown of count; the rest stay put
+    private int shown;
+    private final int width;
+    private final int height;
+    private final float[] x;
+    private final float[] y;
+    private final float[] vx;
+    private final float[] vy;
+    private final byte[] size;
+    private final byte[] colorIndex;
+    private final byte[] alpha;
+    private final Color[] palette;
+    // Each palette colour premultiplied by every alpha, as the raster blend adds it
+    private final int[][] premultiplied;
+    private final Random random;
+
+    ParticleField(int count, int width, int height, Color[] palette, Random random) {
+        this.count = count;
+        this.width = width;
+        this.height = height;
+        this.palette = palette;
+        this.random = random;
+        x = new float[count];
+        y = new float[count];
+        vx = new float[count];
+        vy = new float[count];
+        size = new byte[count];
+        colorIndex = new byte[count];
+        alpha = new byte[count];
+        premultiplied = new int[palette.length][256];
+        for (int c = 0; c < palette.length; c++) {
+            for (int a = 0; a < 256; a++) {
+                Color color = palette[c];
+                premultiplied[c][a] = (color.getRed() * a / 255) << 16 | (color.getGreen() * a / 255) << 8
+                                      | color.getBlue() * a / 255;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            respawn(i);
+        }
+        shown = count;
+    }
+
+    void show(int particles) {
+        shown = Math.max(0, Math.min(count, particles));
+    }
+
+    int shown() {
+        return shown;
+    }
+
+    private void respawn(int i) {
+        x[i] = random.nextFloat() * width;
+        y[i] = random.nextFloat() * height;
+        vx[i] = (random.nextFloat() - 0.5f) * SPEED;
+        vy[i] = (random.nextFloat() - 0.5f) * SPEED;
+        size[i] = (byte) (random.nextInt(3) + 1);
+        alpha[i] = (byte) (255 * (random.nextFloat() * 0.3f + 0.1f));
+        colorIndex[i] = (byte) random.nextInt(palette.length);
+    }
+
+    // Moves every particle one step, respawning those that drift off screen
+    void update() {
+        for (int i = 0; i < shown; i++) {
+            float px = x[i] + vx[i];
+            float py = y[i] + vy[i];
+            x[i] = px;
+            y[i] = py;
+            if (px < 0 || px > width || py < 0 || py > height) {
+                respawn(i);
+            }
+        }
+    }
+
+    // Blends the particles, as small squares, over an opaque raster covering the
+    // field at scale raster pixels to a field pixel
+    void draw(int[] pixels, int rasterWidth, int rasterHeight, float scale) {
+        draw(pixels, rasterWidth, scale, 0, rasterHeight);
+    }
+
+    // Only rows firstRow (inclusive) to lastRow (exclusive) of the raster, so
+    // bands of it can be drawn on different threads
+    void draw(int[] pixels, int rasterWidth, float scale, int firstRow, int lastRow) {
+        for (int i = 0; i < shown; i++) {
+            int top = (int) (y[i] * scale);
+            int side = Math.max(1, Math.round(size[i] * scale));
+            if (top >= lastRow || top + side <= firstRow) continue;
+            int left = (int) (x[i] * scale);
+            int right = Math.min(rasterWidth, left + side);
+            int bottom = Math.min(lastRow, top + side);
+            top = Math.max(firstRow, top);
+            // Source over: the premultiplied colour plus what shows through,
+            // red and blue scaled together in one multiply
+            int a = alpha[i] & 0xff;
+            int source = premultiplied[colorIndex[i]][a];
+            int inverse = 256 - a;
+            for (int row = top; row < bottom; row++) {
+                int offset = row * rasterWidth;
+                for (int col = left; col < right; col++) {
+                    int dst = pixels[offset + col];
+                    int redBlue = ((dst & 0xff00ff) * inverse >>> 8) & 0xff00ff;
+                    int green = ((dst & 0xff00) * inverse >>> 8) & 0xff00;
+                    pixels[offset + col] = source + (redBlue | green);
+                }
+            }
+        }
+    }
+
+    // The original look: one translucent oval per particle
+    void drawShapes(Graphics2D g2d) {
+        for (int i = 0; i < shown; i++) {
+            Color color = palette[colorIndex[i]];
+            g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha[i] & 0xff));
+            g2d.fillOval((int) x[i], (int) y[i], size[i], size[i]);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package Shooting;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+// Toggleable performance HUD: frame time with its update/paint split, the paint
+// phases, allocation rate of the painting thread, GC pauses, the quality tier
+// and a sparkline of the last 120 frames. Everything it needs is allocated up front; text is built
+// in a char buffer and blitted from a glyph strip (GlowText.Chars) so showing it adds no garbage.
+// Setting a font and drawing text with it would build the font's rendering state again on every
+// frame, as the game draws its other text in other fonts.
+class PerformanceOverlay {
+    private static final int HISTORY = 120;
+    private static final long BUDGET_NANOS = 16_666_667L;
+    private static final int X = 560;
+    private static final int Y = 90;
+    private static final int WIDTH = 330;
+    private static final int LINE_HEIGHT = 14;
+    private static final int GRAPH_HEIGHT = 40;
+
+    private final Font font = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private GlowText.Chars chars;
+    private final Color panelColor = new Color(0, 0, 0, 180);
+    private final Color textColor = new Color(220, 230, 240);
+    private final Color graphColor = new Color(100, 200, 255);
+    private final Color budgetColor = new Color(255, 87, 87, 160);
+    private final Stroke graphStroke = new BasicStroke(1);
+
+    private final long[] frameNanos = new long[HISTORY];
+    private final int[] graphX = new int[HISTORY];
+    private final int[] graphY = new int[HISTORY];
+    private int historyStart;
+    private int historyCount;
+
+    private final QualityGovernor quality;
+    private final GarbageCollectorMXBean[] collectors;
+    private final com.sun.management.ThreadMXBean threads;
+    private long lastAllocated = -1;
+    private long lastFrameStart;
+    private long allocatedPerFrame;
+    private long bytesPerSecond;
+    private long framesPerSecond;
+
+    private long updateNanos;
+    private long paintNanos;
+    private final long[] phaseNanos = new long[FrameTimings.PHASES.length];
+
+    private final char[] line = new char[96];
+    private int length;
+
+    boolean visible;
+
+    PerformanceOverlay(QualityGovernor quality) {
+        this.quality = quality;
+        collectors = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < HISTORY; i++) {
+            graphX[i] = X + 10 + i * (WIDTH - 20) / (HISTORY - 1);
+        }
+    }
+
+    // Called once the frame's update and paint timings are final
+    void frameFinished(FrameTimings timings) {
+        long now = System.nanoTime();
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        if (lastAllocated >= 0 && now > lastFrameStart) {
+            long interval = now - lastFrameStart;
+            allocatedPerFrame = allocated - lastAllocated;
+            bytesPerSecond = allocatedPerFrame * 1_000_000_000L / interval;
+            framesPerSecond = 1_000_000_000L / interval;
+        }
+        lastAllocated = allocated;
+        lastFrameStart = now;
+
+        updateNanos = timings.updateNanos;
+        paintNanos = timings.paintNanos;
+        System.arraycopy(timings.phaseNanos, 0, phaseNanos, 0, phaseNanos.length);
+
+        long frame = updateNanos + paintNanos;
+        if (historyCount < HISTORY) {
+            frameNanos[historyCount++] = frame;
+        } else {
+            frameNanos[historyStart] = frame;
+            historyStart = (historyStart + 1) % HISTORY;
+        }
+    }
+
+    // Draws in logical pixels onto a Graphics2D scaled by scale to the screen
+    void draw(Graphics2D g2d, float scale) {
+        if (chars == null || chars.scale != scale) {
+            chars = new GlowText.Chars(font, textColor, scale);
+        }
+        int lines = 6;
+        int height = lines * LINE_HEIGHT + GRAPH_HEIGHT + 20;
+        g2d.setColor(panelColor);
+        g2d.fillRect(X, Y, WIDTH, height);
+
+        int y = Y + LINE_HEIGHT;
+        begin();
+        append("FRAME ");
+        appendMillis(updateNanos + paintNanos);
+        append(" ms  upd ");
+        appendMillis(updateNanos);
+        append("  paint ");
+        appendMillis(paintNanos);
+        append("  ");
+        appendLong(framesPerSecond);
+        append(" fps");
+        drawText(g2d, y);
+
+        y += LINE_HEIGHT;
+        begin();
+        for (int i = 0; i < 3; i++) {
+            appendPhase(i);
+        }
+        drawText(g2d, y);
+
+        y += LINE_HEIGHT;
+        begin();
+        for (int i = 3; i < phaseNanos.length; i++) {
+            appendPhase(i);
+        }
+        drawText(g2d, y);
+
+        y += LINE_HEIGHT;
+        begin();
+        append("ALLOC ");
+        appendLong(allocatedPerFrame / 1024);
+        append(" KB/frame  ");
+        appendLong(bytesPerSecond / (1024 * 1024));
+        append(" MB/s");
+        drawText(g2d, y);
+
+        y += LINE_HEIGHT;
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        begin();
+        append("GC ");
+        appendLong(gcCount);
+        append(" pauses, ");
+        appendLong(gcMillis);
+        append(" ms total");
+        drawText(g2d, y);
+
+        y += LINE_HEIGHT;
+        begin();
+        append("QUALITY ");
+        append(quality.tier().label);
+        append(quality.isAdaptive() ? " (auto)" : " (pinned)");
+        drawText(g2d, y);
+
+        drawSparkline(g2d, y + 10);
+    }
+
+    // Frame times of the last HISTORY frames, full height at two frame budgets
+    private void drawSparkline(Graphics2D g2d, int top) {
+        int bottom = top + GRAPH_HEIGHT;
+        int budgetY = bottom - GRAPH_HEIGHT / 2;
+        g2d.setStroke(graphStroke);
+        g2d.setColor(budgetColor);
+        g2d.drawLine(X + 10, budgetY, X + WIDTH - 10, budgetY);
+
+        for (int i = 0; i < historyCount; i++) {
+            long nanos = frameNanos[(historyStart + i) % HISTORY];
+            long scaled = nanos * GRAPH_HEIGHT / (2 * BUDGET_NANOS);
+            graphY[i] = bottom - (int) Math.min(GRAPH_HEIGHT, scaled);
+        }
+        // Separate segments: drawPolyline builds a path object on every call
+        g2d.setColor(graphColor);
+        for (int i = 1; i < historyCount; i++) {
+            g2d.drawLine(graphX[i - 1], graphY[i - 1], graphX[i], graphY[i]);
+        }
+    }
+
+    private void appendPhase(int phase) {
+        append(FrameTimings.PHASES[phase].label);
+        append(" ");
+        appendMillis(phaseNanos[phase]);
+        append("  ");
+    }
+
+    private void begin() {
+        length = 0;
+    }
+
+    private void drawText(Graphics2D g2d, int y) {
+        chars.draw(g2d, line, 0, length, X + 10, y);
+    }
+
+    private void append(String text) {
+        for (int i = 0; i < text.length() && length < line.length; i++) {
+            line[length++] = text.charAt(i);
+        }
+    }
+
+    private void appendLong(long value) {
+        if (value < 0) {
+            append("-");
+            value = -value;
+        }
+        int start = length;
+        do {
+            if (length == line.length) break;
+            line[length++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        // Digits were written least significant first
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = line[i];
+            line[i] = line[j];
+            line[j] = c;
+        }
+    }
+
+    // Nanoseconds as milliseconds with two decimals
+    private void appendMillis(long nanos) {
+        long hundredths = nanos / 10_000;
+        appendLong(hundredths / 100);
+        append(".");
+        long fraction = hundredths % 100;
+        if (fraction < 10) append("0");
+        appendLong(fraction);
+    }
+}
@@ -0,0 +1,209 @@
+package Shooting;
+
+import java.util.Locale;
+
+// Picks how much of the frame's eye candy to draw from how long frames take.
+// The work of each frame (update plus paint) goes into a rolling window; when
+// too many frames in it run long the governor steps down a tier, and when
+// nearly all of them leave plenty of headroom it steps back up. Stepping up
+// waits longer than stepping down, and the wait doubles every time a step up
+// has to be taken back, so a machine sitting on the edge of a tier settles
+// instead of flickering between two. A step down that does not make frames
+// any faster is undone and not tried again for a while: with the software
+// pipeline, gradients drawn without antialiasing take a slower path than with
+// it. One window is a small sample, so that floor lapses after a time, or
+// sooner when frames keep running long above it.
+class QualityGovernor {
+    // Each tier drops one more thing than the one before
+    enum Tier {
+        FULL("full"),
+        NO_GLOW("no glow"),
+        NO_PULSE("no pulse"),
+        FEWER_PARTICLES("fewer particles"),
+        NO_ANTIALIASING("no antialiasing");
+
+        final String label;
+
+        Tier(String label) {
+            this.label = label;
+        }
+    }
+
+    // Tier.values() copies the array on every call
+    static final Tier[] TIERS = Tier.values();
+
+    // -Dbubbleshooter.quality=auto (the default) or a tier name to pin it, e.g. full
+    static final String QUALITY_PROPERTY = "bubbleshooter.quality";
+
+    static final int WINDOW = 60;
+    // The Timer fires every 16 ms; a frame needing more than 12 of them leaves
+    // too little for event dispatch and the blit to the screen
+    private static final long SLOW_NANOS = 12_000_000L;
+    private static final long FAST_NANOS = 6_000_000L;
+    // Step down when more than this many frames in the window were slow
+    private static final int SLOW_LIMIT = WINDOW / 10;
+    // Step up when at least this many were fast
+    private static final int FAST_QUORUM = WINDOW * 9 / 10;
+    private static final int MIN_UP_DELAY = 3 * WINDOW;
+    private static final int MAX_UP_DELAY = 48 * WINDOW;
+    // How long a floor holds, and how many whole slow windows in a row above
+    // it lift it early
+    private static final int FLOOR_FRAMES = 48 * WINDOW;
+    private static final int FLOOR_SLOW_WINDOWS = 3;
+
+    // Work per frame of the window, oldest at head
+    private final long[] window = new long[WINDOW];
+    private int head;
+    private int filled;
+    private long windowNanos;
+    private int slowFrames;
+    private int fastFrames;
+
+    private Tier tier = Tier.FULL;
+    private boolean adaptive;
+    // Frames at the current tier, and how many must pass before stepping up
+    private int framesAtTier;
+    private int upDelay = MIN_UP_DELAY;
+    private boolean steppedUp;
+    // Mean frame of the window that made the governor step down, which the new
+    // tier has to beat; and the lowest tier that has helped
+    private long meanBeforeStep = Long.MAX_VALUE;
+    private int floor = TIERS.length - 1;
+    private int floorFrames;
+    private int slowWindowsAtFloor;
+
+    // Pinned at FULL until adaptive() or pin() says otherwise
+    QualityGovernor() {
+    }
+
+    // "auto" adapts, anything else is taken as a tier name
+    void configure(String setting) {
+        if (setting.equalsIgnoreCase("auto")) {
+            adaptive();
+        } else {
+            pin(Tier.valueOf(setting.trim().toUpperCase(Locale.ROOT)));
+        }
+    }
+
+    void adaptive() {
+        adaptive = true;
+        liftFloor();
+        meanBeforeStep = Long.MAX_VALUE;
+        restart();
+    }
+
+    void pin(Tier pinned) {
+        adaptive = false;
+        tier = pinned;
+        restart();
+    }
+
+    boolean isAdaptive() {
+        return adaptive;
+    }
+
+    Tier tier() {
+        return tier;
+    }
+
+    boolean glows() {
+        return tier.compareTo(Tier.NO_GLOW) < 0;
+    }
+
+    boolean borderPulse() {
+        return tier.compareTo(Tier.NO_PULSE) < 0;
+    }
+
+    boolean allParticles() {
+        return tier.compareTo(Tier.FEWER_PARTICLES) < 0;
+    }
+
+    boolean antialiasing() {
+        return tier.compareTo(Tier.NO_ANTIALIASING) < 0;
+    }
+
+    // Records one frame's work and returns true when the tier changed
+    boolean frameFinished(long frameNanos) {
+        if (!adaptive) return false;
+        if (filled == WINDOW) {
+            count(window[head], -1);
+        } else {
+            filled++;
+        }
+        window[head] = frameNanos;
+        head = (head + 1) % WINDOW;
+        count(frameNanos, 1);
+        framesAtTier++;
+        if (floorFrames > 0 && --floorFrames == 0) {
+            liftFloor();
+        }
+        if (tier.ordinal() >= floor && framesAtTier % WINDOW == 0) {
+            // Held up by the floor: a run of slow windows outvotes the one that set it
+            slowWindowsAtFloor = slowFrames > SLOW_LIMIT ? slowWindowsAtFloor + 1 : 0;
+            if (slowWindowsAtFloor >= FLOOR_SLOW_WINDOWS) {
+                liftFloor();
+            }
+        }
+
+        // A partly filled window already knows it is too slow, but not that it is fast enough
+        if (slowFrames > SLOW_LIMIT && tier.ordinal() < floor) {
+            if (steppedUp && framesAtTier <= 2 * WINDOW) {
+                // The step up did not hold: the next one waits twice as long
+                upDelay = Math.min(MAX_UP_DELAY, upDelay * 2);
+            }
+            steppedUp = false;
+            meanBeforeStep = windowNanos / filled;
+            return step(1);
+        }
+        if (filled < WINDOW) return false;
+        if (meanBeforeStep != Long.MAX_VALUE && framesAtTier == WINDOW) {
+            long before = meanBeforeStep;
+            meanBeforeStep = Long.MAX_VALUE;
+            if (windowNanos / WINDOW >= before) {
+                // Dropping this tier's feature bought nothing; stay above it for a while
+                floor = tier.ordinal() - 1;
+                floorFrames = FLOOR_FRAMES;
+                slowWindowsAtFloor = 0;
+                return step(-1);
+            }
+        }
+        if (fastFrames >= FAST_QUORUM && framesAtTier >= upDelay && tier.ordinal() > 0) {
+            if (steppedUp) {
+                // The last step up held, so this one earns back some patience
+                upDelay = Math.max(MIN_UP_DELAY, upDelay / 2);
+            }
+            steppedUp = true;
+            return step(-1);
+        }
+        return false;
+    }
+
+    private void liftFloor() {
+        floor = TIERS.length - 1;
+        floorFrames = 0;
+        slowWindowsAtFloor = 0;
+    }
+
+    private boolean step(int direction) {
+        tier = TIERS[tier.ordinal() + direction];
+        restart();
+        return true;
+    }
+
+    // Adds (sign 1) or removes (sign -1) a frame from the window's totals
+    private void count(long frameNanos, int sign) {
+        windowNanos += sign * frameNanos;
+        if (frameNanos > SLOW_NANOS) slowFrames += sign;
+        if (frameNanos < FAST_NANOS) fastFrames += sign;
+    }
+
+    // The new tier is judged on its own frames only
+    private void restart() {
+        head = 0;
+        filled = 0;
+        windowNanos = 0;
+        slowFrames = 0;
+        fastFrames = 0;
+        framesAtTier = 0;
+    }
+}
@@ -0,0 +1,14 @@
+package Shooting;
+
+// Ways of drawing a frame, selectable for benchmarking and comparison
+enum RenderMode {
+    // Every shape, gradient and string drawn from scratch each frame
+    LEGACY,
+    // Sprites and static layers rendered once; frames are composed from images,
+    // solid fills, lines and glyphs and allocate nothing in steady state
+    CACHED,
+    // CACHED with one screen-space bloom pass in place of every sprite's own glow
+    BLOOM,
+    // CACHED with the background and grid painted in bands on a pool of workers
+    TILED
+}
@@ -0,0 +1,90 @@
+package Shooting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Save slot on disk. Writes go to a temp file that is renamed over the old
+// save, so a crash mid-write leaves the previous save intact. Autosaves are
+// written on a background thread; if several arrive while one is being
+// written only the newest is kept.
+class SaveFile {
+    static final String SAVE_PROPERTY = "bubbleshooter.save";
+
+    private final Path file;
+    private final Path tempFile;
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    SaveFile(Path file) {
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        // Don't lose the last shot when the window is closed mid-write
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "autosave-flush"));
+    }
+
+    // File named by -Dbubbleshooter.save, or ~/.bubbleshooter/save.dat
+    static SaveFile openDefault() {
+        String path = System.getProperty(SAVE_PROPERTY);
+        if (path != null) {
+            return new SaveFile(Paths.get(path));
+        }
+        return new SaveFile(Paths.get(System.getProperty("user.home"), ".bubbleshooter", "save.dat"));
+    }
+
+    void saveAsync(byte[] data) {
+        if (pending.getAndSet(data) == null) {
+            writer.execute(this::flush);
+        }
+    }
+
+    // Contents of the save, or null when there is none
+    byte[] load() throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        return Files.readAllBytes(file);
+    }
+
+    private synchronized void flush() {
+        byte[] data = pending.getAndSet(null);
+        if (data == null) return;
+
+        try {
+            write(data);
+        } catch (IOException e) {
+            System.err.println("Could not save game to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void write(byte[] data) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
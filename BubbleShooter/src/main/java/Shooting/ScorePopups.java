@@ -0,0 +1,199 @@
+package Shooting;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// The "+points" popups that rise and fade where bubbles were scored. Popups
+// live in a fixed ring buffer: all of them last the same number of ticks, so
+// the oldest is always the next to finish, and when the ring is full a new
+// popup replaces the oldest. The text of each distinct value is rasterized
+// once, at the scale of the screen, and kept; frames only blit it through a
+// fading composite, in device pixels.
+class ScorePopups {
+    static final int CAPACITY = 256;
+    private static final int LIFETIME = 60;
+    private static final int RISE = 2;
+    // Open-addressed by value; scores repeat (5 x level, 10 x group x level),
+    // so a few dozen entries cover a long game. The table is started over
+    // before it gets more than half full, to keep probes short.
+    private static final int CACHE_SIZE = 128;
+    private static final int CACHE_LIMIT = CACHE_SIZE / 2;
+
+    private final Font font = new Font("Arial", Font.BOLD, 16);
+    private final Color smallColor;
+    private final Color largeColor;
+
+    private final int[] x = new int[CAPACITY];
+    private final int[] y = new int[CAPACITY];
+    private final int[] timer = new int[CAPACITY];
+    private final int[] points = new int[CAPACITY];
+    private int head;
+    private int count;
+
+    private final int[] cachedPoints = new int[CACHE_SIZE];
+    private final BufferedImage[] cachedText = new BufferedImage[CACHE_SIZE];
+    private int cached;
+    private int ascent = -1;
+    private float scale = 1;
+
+    // Scores above 50 are drawn in largeColor
+    ScorePopups(Color smallColor, Color largeColor) {
+        this.smallColor = smallColor;
+        this.largeColor = largeColor;
+    }
+
+    void add(int atX, int atY, int value) {
+        int slot;
+        if (count < CAPACITY) {
+            slot = (head + count++) % CAPACITY;
+        } else {
+            slot = head;
+            head = (head + 1) % CAPACITY;
+        }
+        x[slot] = atX;
+        y[slot] = atY;
+        timer[slot] = 0;
+        points[slot] = value;
+    }
+
+    void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    int size() {
+        return count;
+    }
+
+    // Device pixels per logical pixel for draw(); text cached at another scale is dropped
+    void setScale(float scale) {
+        if (scale != this.scale) {
+            this.scale = scale;
+            Arrays.fill(cachedText, null);
+            cached = 0;
+        }
+    }
+
+    void update() {
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % CAPACITY;
+            timer[slot]++;
+            y[slot] -= RISE;
+        }
+        while (count > 0 && timer[head] >= LIFETIME) {
+            head = (head + 1) % CAPACITY;
+            count--;
+        }
+    }
+
+    private Color colorFor(int value) {
+        return value > 50 ? largeColor : smallColor;
+    }
+
+    // The original look: a new colour and font for every popup on every frame
+    void drawText(Graphics2D g2d) {
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % CAPACITY;
+            Color color = colorFor(points[slot]);
+            float alpha = 1.0f - (float) timer[slot] / LIFETIME;
+            g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), (int)(255 * alpha)));
+            g2d.setFont(new Font("Arial", Font.BOLD, 16));
+            g2d.drawString("+" + points[slot], x[slot], y[slot]);
+        }
+    }
+
+    // Cached text faded by fades[alpha]; the composite is left at SrcOver.
+    // Only reads, so several threads can draw at once: text that prepare did
+    // not cache is not drawn.
+    void draw(Graphics2D g2d, AlphaComposite[] fades) {
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % CAPACITY;
+            BufferedImage text = cachedText(points[slot]);
+            if (text == null) continue;
+            // Popups rise off the top of the window; the text is cropped here
+            // because a blit clipped by the window takes an allocating path
+            int left = Math.round(x[slot] * scale);
+            int top = Math.round(y[slot] * scale) - ascent;
+            int skip = Math.max(0, -top);
+            int width = text.getWidth();
+            int height = text.getHeight();
+            if (skip >= height) continue;
+            float alpha = 1.0f - (float) timer[slot] / LIFETIME;
+            g2d.setComposite(fades[(int)(255 * alpha)]);
+            g2d.drawImage(text, left, top + skip, left + width, top + height, 0, skip, width, height, null);
+        }
+        g2d.setComposite(AlphaComposite.SrcOver);
+    }
+
+    // Rasterizes the text of every live popup not yet cached; call it before
+    // each draw. The table is started over first if the popups could take it
+    // past its limit, never while they are being added, so no live popup's
+    // text is dropped once cached. More distinct values than the table holds
+    // (only reachable with dozens of different scores on screen) leave the
+    // last of them undrawn rather than growing the probes.
+    void prepare() {
+        if (cached + count > CACHE_LIMIT && missing()) {
+            Arrays.fill(cachedText, null);
+            cached = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int value = points[(head + i) % CAPACITY];
+            if (cachedText(value) == null && cached < CACHE_SIZE - 1) {
+                add(value);
+            }
+        }
+    }
+
+    // True when some live popup's text is not cached yet
+    private boolean missing() {
+        for (int i = 0; i < count; i++) {
+            if (cachedText(points[(head + i) % CAPACITY]) == null) return true;
+        }
+        return false;
+    }
+
+    // The cached text for a value, or null; never changes the table
+    private BufferedImage cachedText(int value) {
+        int index = (value & 0x7fffffff) % CACHE_SIZE;
+        for (int probe = 0; probe < CACHE_SIZE; probe++) {
+            if (cachedText[index] == null) return null;
+            if (cachedPoints[index] == value) return cachedText[index];
+            index = (index + 1) % CACHE_SIZE;
+        }
+        return null;
+    }
+
+    // Rasterizes a value not in the table into its first free slot
+    private void add(int value) {
+        int index = (value & 0x7fffffff) % CACHE_SIZE;
+        while (cachedText[index] != null) {
+            index = (index + 1) % CACHE_SIZE;
+        }
+        cachedPoints[index] = value;
+        cachedText[index] = rasterize("+" + value, colorFor(value));
+        cached++;
+    }
+
+    // The label in the font sized for the scale, so ascent is in device pixels
+    private BufferedImage rasterize(String label, Color color) {
+        Font scaled = scale == 1 ? font : font.deriveFont(font.getSize2D() * scale);
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = BubbleShooterGame.spriteGraphics(scratch);
+        FontMetrics fm = g2d.getFontMetrics(scaled);
+        g2d.dispose();
+        ascent = fm.getAscent();
+        BufferedImage image = new BufferedImage(Math.max(1, fm.stringWidth(label)), fm.getHeight(),
+                                                BufferedImage.TYPE_INT_ARGB_PRE);
+        g2d = BubbleShooterGame.spriteGraphics(image);
+        g2d.setFont(scaled);
+        g2d.setColor(color);
+        g2d.drawString(label, 0, ascent);
+        g2d.dispose();
+        return image;
+    }
+}
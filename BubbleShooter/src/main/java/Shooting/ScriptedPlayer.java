@@ -0,0 +1,33 @@
+package Shooting;
+
+// Plays a game without a person at the controls: sweeps the aim across the
+// board, fires on a fixed beat and clicks through end screens, so every run of
+// a given seed plays the same game. Input goes through the game's queue as
+// the mouse's would, and is applied by the tick that follows.
+class ScriptedPlayer {
+    private static final int SHOT_INTERVAL = 20;
+    private static final int END_SCREEN_FRAMES = 30;
+
+    private final BubbleShooterGame game;
+    private int endScreenFrames;
+
+    ScriptedPlayer(BubbleShooterGame game) {
+        this.game = game;
+    }
+
+    // Queues the input for the given frame; call before the frame's tick
+    void play(int frame) {
+        int aimX = BubbleShooterGame.WINDOW_WIDTH / 2 + (int) (300 * Math.sin(frame * 0.02));
+        int aimY = BubbleShooterGame.SHOOTER_Y - 200;
+        game.input.aim(aimX, aimY);
+
+        if (game.gameOver || game.gameWon) {
+            if (++endScreenFrames >= END_SCREEN_FRAMES) {
+                endScreenFrames = 0;
+                game.input.offer(InputQueue.Command.CLICK, aimX, aimY);
+            }
+        } else if (frame % SHOT_INTERVAL == 0) {
+            game.input.offer(InputQueue.Command.CLICK, aimX, aimY);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package Shooting;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+// Streams scripted games to simulated spectators with BoardDelta and reports
+// what each spectator costs in bandwidth. Every tick each spectator is sent
+// the changes since the last version it acknowledged; updates are lost at
+// the given rate and acknowledgements arrive a fixed number of ticks late,
+// as over a real link. Every update that arrives is checked against the game:
+// the spectator's board, score and shots must match exactly.
+// Usage: SpectatorBenchmark [--games N] [--spectators N] [--ticks N] [--loss P] [--ack-delay N] [--seed N]
+public class SpectatorBenchmark {
+    private static final int TICKS_PER_SECOND = 60;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int gameCount = 100;
+        int spectatorsPerGame = 10;
+        int ticks = 3600;
+        double loss = 0.02;
+        int ackDelay = 6;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--games": gameCount = Integer.parseInt(value); i++; break;
+                case "--spectators": spectatorsPerGame = Integer.parseInt(value); i++; break;
+                case "--ticks": ticks = Integer.parseInt(value); i++; break;
+                case "--loss": loss = Double.parseDouble(value); i++; break;
+                case "--ack-delay": ackDelay = Math.max(1, Integer.parseInt(value)); i++; break;
+                case "--seed": seed = Long.parseLong(value); i++; break;
+                default:
+                    System.err.println("Usage: SpectatorBenchmark [--games N] [--spectators N] [--ticks N] "
+                                       + "[--loss P] [--ack-delay N] [--seed N]");
+                    System.exit(1);
+            }
+        }
+
+        LevelPackReader levelPack = LevelPackReader.openDefault();
+        BubbleShooterGame[] games = new BubbleShooterGame[gameCount];
+        ScriptedPlayer[] players = new ScriptedPlayer[gameCount];
+        BoardDelta.Encoder[] encoders = new BoardDelta.Encoder[gameCount];
+        for (int g = 0; g < gameCount; g++) {
+            games[g] = new BubbleShooterGame(new Random(seed + g), levelPack);
+            players[g] = new ScriptedPlayer(games[g]);
+            encoders[g] = new BoardDelta.Encoder(games[g]);
+        }
+        int spectatorCount = gameCount * spectatorsPerGame;
+        BoardDelta.Decoder[] decoders = new BoardDelta.Decoder[spectatorCount];
+        // Acknowledgements in flight, ackDelay per spectator: the version each
+        // spectator had on each of the last ackDelay ticks
+        int[] acks = new int[spectatorCount * ackDelay];
+        long[] bytes = new long[spectatorCount];
+        for (int s = 0; s < spectatorCount; s++) {
+            decoders[s] = new BoardDelta.Decoder(BubbleShooterGame.BOARD_ROWS, BubbleShooterGame.BOARD_COLS);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(encoders[0].maxBytes());
+        // Sizes of every update sent, in bytes
+        long[] sizes = new long[buffer.capacity() + 1];
+        Random network = new Random(seed);
+        long updates = 0;
+        long lost = 0;
+        long stale = 0;
+        long mismatches = 0;
+        long fullBoards = 0;
+        long encodeNanos = 0;
+
+        for (int tick = 0; tick < ticks; tick++) {
+            int slot = tick % ackDelay;
+            for (int g = 0; g < gameCount; g++) {
+                BubbleShooterGame game = games[g];
+                players[g].play(tick);
+                game.tick();
+                for (int s = g * spectatorsPerGame; s < (g + 1) * spectatorsPerGame; s++) {
+                    BoardDelta.Decoder decoder = decoders[s];
+                    int acked = acks[s * ackDelay + slot];
+                    buffer.clear();
+                    long encodeStart = System.nanoTime();
+                    encoders[g].encode(acked, buffer);
+                    encodeNanos += System.nanoTime() - encodeStart;
+                    buffer.flip();
+                    int size = buffer.remaining();
+                    bytes[s] += size;
+                    sizes[size]++;
+                    updates++;
+                    if (acked == 0) {
+                        fullBoards++;
+                    }
+
+                    if (network.nextDouble() < loss) {
+                        lost++;
+                    } else if (!decoder.apply(buffer)) {
+                        stale++;
+                    } else if (!matches(decoder, game)) {
+                        mismatches++;
+                    }
+                    acks[s * ackDelay + slot] = decoder.version;
+                }
+            }
+        }
+
+        // The same stream with the whole board in every update: the header,
+        // every cell two to a byte, and the shots
+        int wholeBoard = 5 + 4 + (BubbleShooterGame.BOARD_ROWS * BubbleShooterGame.BOARD_COLS + 1) / 2 + 6;
+        double[] perSpectator = new double[spectatorCount];
+        for (int s = 0; s < spectatorCount; s++) {
+            perSpectator[s] = bytes[s] / (double) ticks * TICKS_PER_SECOND;
+        }
+        Arrays.sort(perSpectator);
+        long totalBytes = 0;
+        for (long b : bytes) {
+            totalBytes += b;
+        }
+
+        System.out.printf(Locale.ROOT, "%d games, %d spectators each, %d ticks, %.1f%% of updates lost, "
+                          + "acks %d ticks late%n", gameCount, spectatorsPerGame, ticks, loss * 100, ackDelay);
+        System.out.printf(Locale.ROOT, "Update bytes: mean %.1f, p50 %d, p99 %d, max %d (whole board: about %d)%n",
+                          totalBytes / (double) updates, quantile(sizes, updates, 0.50),
+                          quantile(sizes, updates, 0.99), quantile(sizes, updates, 1.0), wholeBoard);
+        System.out.printf(Locale.ROOT, "Per spectator at %d ticks/s: p50 %.2f KB/s, p99 %.2f KB/s, max %.2f KB/s "
+                          + "(whole board: %.2f KB/s)%n", TICKS_PER_SECOND, perSpectator[index(spectatorCount, 0.50)] / 1e3,
+                          perSpectator[index(spectatorCount, 0.99)] / 1e3, perSpectator[spectatorCount - 1] / 1e3,
+                          wholeBoard * TICKS_PER_SECOND / 1e3);
+        System.out.printf(Locale.ROOT, "All spectators: %.1f MB in %d updates, %d lost, %d stale, %d sent from scratch%n",
+                          totalBytes / 1e6, updates, lost, stale, fullBoards);
+        System.out.printf(Locale.ROOT, "Encoding: %.0f ns per update%n", encodeNanos / (double) updates);
+        if (mismatches > 0) {
+            System.out.println("FAILED: " + mismatches + " updates left a spectator's copy different from the game");
+            System.exit(1);
+        }
+        System.out.println("OK: every update that arrived rebuilt the game exactly");
+    }
+
+    private static boolean matches(BoardDelta.Decoder decoder, BubbleShooterGame game) {
+        if (!Arrays.equals(decoder.board.cells, game.board.cells)) return false;
+        if (decoder.score != game.score() || decoder.level != game.level) return false;
+        if (decoder.shotCount != game.shootingBubbles.size()) return false;
+        for (int i = 0; i < decoder.shotCount; i++) {
+            Bubble shot = game.shootingBubbles.get(i);
+            if (decoder.shotX[i] != shot.x || decoder.shotY[i] != shot.y || decoder.shotColor[i] != shot.color) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The size below which the given share of the counted updates fall
+    private static int quantile(long[] counts, long total, double share) {
+        long target = Math.max(1, (long) Math.ceil(share * total));
+        long seen = 0;
+        for (int size = 0; size < counts.length; size++) {
+            seen += counts[size];
+            if (seen >= target) return size;
+        }
+        return counts.length - 1;
+    }
+
+    private static int index(int length, double quantile) {
+        return Math.max(0, Math.min(length - 1, (int) Math.ceil(quantile * length) - 1));
+    }
+}
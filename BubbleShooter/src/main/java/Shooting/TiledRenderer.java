@@ -0,0 +1,100 @@
+package Shooting;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+// Paints a frame in horizontal bands on a pool of workers, all into one shared
+// premultiplied image that is then presented with a single blit. Each band
+// has its own Graphics clipped to its rows, created once per image. The
+// painting thread is one of the workers (see BandWorkers). There are twice as
+// many bands as workers so one that finishes a sparse band can take another:
+// the grid fills the top of the board and leaves the bottom empty. What goes
+// into a band is up to the painter, which culls what lies outside its rows.
+// The workers run until close().
+class TiledRenderer {
+    // -Dbubbleshooter.tiles=N sets the number of workers, one per core by default
+    static final String THREADS_PROPERTY = "bubbleshooter.tiles";
+    private static final int BANDS_PER_THREAD = 2;
+
+    // Draws what falls in device rows top (inclusive) to bottom (exclusive).
+    // Called on worker threads, several at once, so must not change shared state.
+    interface BandPainter {
+        void paintBand(Graphics2D g2d, int top, int bottom);
+    }
+
+    private final BandWorkers workers;
+    private final int[] tops;
+    private final int[] bottoms;
+    private final Graphics2D[] bandGraphics;
+
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    TiledRenderer(int threads, BandPainter painter) {
+        threads = Math.max(1, threads);
+        int bands = threads == 1 ? 1 : threads * BANDS_PER_THREAD;
+        tops = new int[bands];
+        bottoms = new int[bands];
+        bandGraphics = new Graphics2D[bands];
+        workers = new BandWorkers("tile-worker", threads, bands,
+                                  band -> painter.paintBand(bandGraphics[band], tops[band], bottoms[band]));
+    }
+
+    int threads() {
+        return workers.threads();
+    }
+
+    // The shared image, sized for a frame width by height device pixels, with a
+    // Graphics over all of it for what is drawn after the bands
+    Graphics2D begin(int width, int height, boolean antialiasing) {
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            for (Graphics2D band : bandGraphics) {
+                if (band != null) band.dispose();
+            }
+            if (graphics != null) graphics.dispose();
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            graphics = image.createGraphics();
+            for (int i = 0; i < bandGraphics.length; i++) {
+                tops[i] = height * i / bandGraphics.length;
+                bottoms[i] = height * (i + 1) / bandGraphics.length;
+                bandGraphics[i] = image.createGraphics();
+                bandGraphics[i].clipRect(0, tops[i], width, bottoms[i] - tops[i]);
+            }
+        }
+        Object hint = antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF;
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, hint);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        for (Graphics2D band : bandGraphics) {
+            band.setRenderingHint(RenderingHints.KEY_ANTIALIASING, hint);
+        }
+        return graphics;
+    }
+
+    // Paints every band and returns once all are done. Whatever the painter
+    // set up beforehand is visible to the workers: the counters are written
+    // after it and read before any band is painted.
+    void paintBands() {
+        if (workers.isClosed()) throw new IllegalStateException("Tiled renderer closed");
+        workers.run();
+    }
+
+    // Blits the finished image to the screen
+    void present(Graphics2D g2d) {
+        g2d.drawImage(image, 0, 0, null);
+    }
+
+    // Stops the workers and lets the image go. Call it from the painting
+    // thread, or once nothing paints with the renderer any more.
+    void close() {
+        if (workers.isClosed()) return;
+        workers.close();
+        for (int i = 0; i < bandGraphics.length; i++) {
+            if (bandGraphics[i] != null) bandGraphics[i].dispose();
+            bandGraphics[i] = null;
+        }
+        if (graphics != null) graphics.dispose();
+        graphics = null;
+        image = null;
+    }
+}
@@ -0,0 +1,109 @@
+package Shooting;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.geom.AffineTransform;
+
+// Where the logical WINDOW_WIDTH x WINDOW_HEIGHT frame sits in the panel. The
+// frame is scaled as large as fits, centred, with bars along the other axis.
+// The scale is counted in device pixels per logical pixel (window scaling
+// times the display's own scale factor) and snapped down to an eighth, so
+// sprites rendered at that scale land on whole device pixels, and a window
+// being dragged only asks for new sprites every few pixels.
+// Everything is recomputed only when the panel size or its screen changes.
+class Viewport {
+    static final float STEP = 8;
+    private static final float MIN_SCALE = 0.25f;
+
+    private final int logicalWidth;
+    private final int logicalHeight;
+
+    private int panelWidth = -1;
+    private int panelHeight = -1;
+    private GraphicsConfiguration configuration;
+    private boolean configured;
+
+    // Display pixels per panel coordinate, 1 unless the screen is scaled
+    private double deviceScale = 1;
+    // Device pixels per logical pixel, and the frame's top left in device pixels
+    private float scale = 1;
+    private int originX;
+    private int originY;
+    // Logical coordinates to panel coordinates, as the legacy renderer and
+    // mouse events see them
+    private final AffineTransform transform = new AffineTransform();
+
+    Viewport(int logicalWidth, int logicalHeight) {
+        this.logicalWidth = logicalWidth;
+        this.logicalHeight = logicalHeight;
+    }
+
+    // Returns true when the scale or placement changed. The configuration is
+    // null for a panel not on screen; it is then taken to be unscaled.
+    boolean update(int width, int height, GraphicsConfiguration gc) {
+        if (width == panelWidth && height == panelHeight && configured && gc == configuration) {
+            return false;
+        }
+        panelWidth = width;
+        panelHeight = height;
+        configuration = gc;
+        configured = true;
+        deviceScale = gc == null ? 1 : gc.getDefaultTransform().getScaleX();
+
+        float oldScale = scale;
+        int oldX = originX;
+        int oldY = originY;
+        if (width <= 0 || height <= 0) {
+            // Not laid out yet
+            scale = (float) deviceScale;
+        } else {
+            double fit = Math.min((double) width / logicalWidth, (double) height / logicalHeight) * deviceScale;
+            scale = Math.max(MIN_SCALE, (float) Math.floor(fit * STEP + 1e-6) / STEP);
+        }
+        originX = Math.max(0, ((int) Math.round(width * deviceScale) - Math.round(logicalWidth * scale)) / 2);
+        originY = Math.max(0, ((int) Math.round(height * deviceScale) - Math.round(logicalHeight * scale)) / 2);
+        transform.setToTranslation(originX / deviceScale, originY / deviceScale);
+        transform.scale(scale / deviceScale, scale / deviceScale);
+        return scale != oldScale || originX != oldX || originY != oldY;
+    }
+
+    double deviceScale() {
+        return deviceScale;
+    }
+
+    float scale() {
+        return scale;
+    }
+
+    int originX() {
+        return originX;
+    }
+
+    int originY() {
+        return originY;
+    }
+
+    // True when logical coordinates are panel coordinates
+    boolean isIdentity() {
+        return transform.isIdentity();
+    }
+
+    // True when the frame does not cover the whole panel
+    boolean hasBars() {
+        return originX > 0 || originY > 0
+               || Math.round(logicalWidth * scale) < Math.round(panelWidth * deviceScale)
+               || Math.round(logicalHeight * scale) < Math.round(panelHeight * deviceScale);
+    }
+
+    AffineTransform transform() {
+        return transform;
+    }
+
+    // A panel coordinate, as a mouse event gives it, in logical pixels
+    int logicalX(int x) {
+        return (int) Math.floor((x * deviceScale - originX) / scale);
+    }
+
+    int logicalY(int y) {
+        return (int) Math.floor((y * deviceScale - originY) / scale);
+    }
+}
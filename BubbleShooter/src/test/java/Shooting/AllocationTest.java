@@ -0,0 +1,84 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+// Plays the scripted game headlessly and checks that no steady-state frame
+// allocates a single byte on the painting thread. What is left out, on purpose:
+//  - frames where a board settles (a shot lands or a level starts): the game
+//    takes a snapshot for the autosave and records the board for undo, and
+//    both copy the board into new arrays
+//  - the first frame of a game, which lays out the viewport and builds the
+//    game's own frame buffers and background
+//  - what the JIT does while it settles. Interpreted and C1 code allocates
+//    what C2 later scalar-replaces, and compiled code that takes a branch it
+//    never saw while profiling (the first bounce off a wall, the first popup
+//    scrolled off the top) deoptimizes and rebuilds those objects on the
+//    heap; a recompile now and then does the same on one frame. The script is
+//    deterministic, so the game is replayed: the first pass only warms up,
+//    and a frame fails when it allocates in every pass after that. A frame
+//    that allocates in its own right does so each time it is played.
+public class AllocationTest {
+    private static final long SEED = 42;
+    // Fifteen shots over most of one sweep of the aim; OffscreenBenchmark
+    // --max-alloc is there for longer runs
+    private static final int FRAMES = 300;
+    private static final int PASSES = 4;
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    private static OffscreenBenchmark.Report play(RenderMode renderMode) {
+        OffscreenBenchmark benchmark = new OffscreenBenchmark(SEED, renderMode, -1, "full", 1);
+        try {
+            OffscreenBenchmark.Report report = benchmark.run(0, FRAMES);
+            assertTrue(report.steadyFrames() > FRAMES * 9 / 10);
+            return report;
+        } finally {
+            benchmark.close();
+        }
+    }
+
+    private static void assertSteadyFramesAllocateNothing(RenderMode renderMode) {
+        play(renderMode);
+        long[] leastAllocated = new long[FRAMES];
+        Arrays.fill(leastAllocated, Long.MAX_VALUE);
+        for (int pass = 1; pass < PASSES; pass++) {
+            OffscreenBenchmark.Report report = play(renderMode);
+            for (int frame = 0; frame < FRAMES; frame++) {
+                long allocated = report.steady[frame] ? report.allocatedBytes[frame] : 0;
+                leastAllocated[frame] = Math.min(leastAllocated[frame], allocated);
+            }
+        }
+
+        StringBuilder failing = new StringBuilder();
+        for (int frame = 1; frame < FRAMES; frame++) {
+            if (leastAllocated[frame] != 0) {
+                failing.append(" frame ").append(frame).append(": ").append(leastAllocated[frame]).append(" B");
+            }
+        }
+        assertEquals("", failing.toString());
+    }
+
+    @Test
+    public void cachedRendererAllocatesNothing() {
+        assertSteadyFramesAllocateNothing(RenderMode.CACHED);
+    }
+
+    @Test
+    public void bloomRendererAllocatesNothing() {
+        assertSteadyFramesAllocateNothing(RenderMode.BLOOM);
+    }
+
+    @Test
+    public void tiledRendererAllocatesNothing() {
+        assertSteadyFramesAllocateNothing(RenderMode.TILED);
+    }
+}
@@ -0,0 +1,97 @@
+package Shooting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BloomTest {
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 700;
+    // More bands than this machine may have cores, so the workers share them
+    private static final int BANDS = 4;
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    // A board's worth of glowing discs, the same for every seed-equal call
+    private static void splat(Bloom bloom, long seed) {
+        Random random = new Random(seed);
+        bloom.clear();
+        for (int i = 0; i < 150; i++) {
+            Color color = Palette.BUBBLES.color(random.nextInt(Palette.BUBBLES.size()));
+            bloom.add(random.nextInt(WIDTH), random.nextInt(HEIGHT), 30 + random.nextInt(30), color,
+                      60 + random.nextInt(150));
+        }
+    }
+
+    private static int[] render(Bloom bloom, long seed) {
+        BufferedImage canvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = canvas.createGraphics();
+        try {
+            splat(bloom, seed);
+            bloom.draw(g2d);
+        } finally {
+            g2d.dispose();
+        }
+        return ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+    }
+
+    @Test
+    public void bandsDrawWhatOneBandDraws() {
+        Bloom single = new Bloom(WIDTH, HEIGHT, 1);
+        Bloom banded = new Bloom(WIDTH, HEIGHT, BANDS);
+        try {
+            for (long seed = 0; seed < 5; seed++) {
+                assertArrayEquals("seed " + seed, render(single, seed), render(banded, seed));
+            }
+        } finally {
+            single.close();
+            banded.close();
+        }
+    }
+
+    @Test
+    public void bandedDrawAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Bloom bloom = new Bloom(WIDTH, HEIGHT, BANDS);
+        BufferedImage canvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = canvas.createGraphics();
+        try {
+            // Until the JIT has compiled the blit: before that the interpreted
+            // Java2D code allocates. A single small disc keeps that quick.
+            for (int frame = 0; frame < 20_000; frame++) {
+                bloom.clear();
+                bloom.add(frame % WIDTH, frame % HEIGHT, 40, Color.WHITE, 200);
+                bloom.draw(g2d);
+            }
+            long least = Long.MAX_VALUE;
+            for (int pass = 0; pass < 3; pass++) {
+                long allocated = 0;
+                for (int frame = 0; frame < 200; frame++) {
+                    splat(bloom, frame % 10);
+                    long before = threads.getThreadAllocatedBytes(thread);
+                    bloom.draw(g2d);
+                    allocated += threads.getThreadAllocatedBytes(thread) - before;
+                }
+                least = Math.min(least, allocated);
+            }
+            assertEquals(0, least);
+        } finally {
+            g2d.dispose();
+            bloom.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Shooting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BoardDeltaTest {
+    private static final int TICKS = 3000;
+
+    private BubbleShooterGame game;
+    private ScriptedPlayer player;
+    private BoardDelta.Encoder encoder;
+    private ByteBuffer buffer;
+    private int tick;
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Before
+    public void startGame() {
+        game = new BubbleShooterGame(new Random(9), null);
+        player = new ScriptedPlayer(game);
+        encoder = new BoardDelta.Encoder(game);
+        buffer = ByteBuffer.allocate(encoder.maxBytes());
+    }
+
+    private void advance() {
+        player.play(tick++);
+        game.tick();
+    }
+
+    // The update taking a spectator at the acked version to the game as it is now
+    private ByteBuffer update(int acked) {
+        buffer.clear();
+        encoder.encode(acked, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    private BoardDelta.Decoder spectator() {
+        return new BoardDelta.Decoder(BubbleShooterGame.BOARD_ROWS, BubbleShooterGame.BOARD_COLS);
+    }
+
+    private void assertMatchesGame(BoardDelta.Decoder decoder) {
+        assertArrayEquals("board at tick " + tick, game.board.cells, decoder.board.cells);
+        assertEquals(game.level, decoder.level);
+        assertEquals(game.score(), decoder.score);
+        assertEquals(game.shootingBubbles.size(), decoder.shotCount);
+        for (int i = 0; i < decoder.shotCount; i++) {
+            assertEquals(game.shootingBubbles.get(i).x, decoder.shotX[i]);
+            assertEquals(game.shootingBubbles.get(i).y, decoder.shotY[i]);
+        }
+    }
+
+    @Test
+    public void everyUpdateRebuildsTheGame() {
+        BoardDelta.Decoder decoder = spectator();
+        for (int i = 0; i < TICKS; i++) {
+            advance();
+            assertTrue(decoder.apply(update(decoder.version)));
+            assertMatchesGame(decoder);
+        }
+    }
+
+    @Test
+    public void updateAfterDroppedOnesRebuildsTheGame() {
+        BoardDelta.Decoder decoder = spectator();
+        int widestJump = 0;
+        for (int i = 0; i < TICKS; i++) {
+            advance();
+            ByteBuffer update = update(decoder.version);
+            // Lose runs of 20 to 200 updates, long enough to miss several shots
+            // landing; the spectator keeps acking what it has
+            if (i % 250 < (i / 250 % 10 + 1) * 20) continue;
+
+            int before = decoder.version;
+            assertTrue(decoder.apply(update));
+            assertMatchesGame(decoder);
+            widestJump = Math.max(widestJump, decoder.version - before);
+        }
+        assertTrue("no update covered more than one lost version", widestJump > 1);
+    }
+
+    @Test
+    public void staleUpdateIsRefused() {
+        BoardDelta.Decoder decoder = spectator();
+        for (int i = 0; i < 600; i++) {
+            advance();
+        }
+        ByteBuffer old = ByteBuffer.allocate(encoder.maxBytes());
+        old.put(update(0)).flip();
+        for (int i = 0; i < 600; i++) {
+            advance();
+        }
+        assertTrue(decoder.apply(update(0)));
+        byte[] board = decoder.board.cells.clone();
+
+        assertFalse(decoder.apply(old));
+        assertArrayEquals(board, decoder.board.cells);
+        assertMatchesGame(decoder);
+    }
+}
@@ -0,0 +1,86 @@
+package Shooting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoardHistoryTest {
+    private static final int ROWS = 12;
+    private static final int COLS = 16;
+    private static final int CAPACITY = 4;
+    private static final int SHOTS = 10;
+
+    private final Random random = new Random(5);
+    private final Level board = Level.random(random, ROWS, COLS, 5);
+    // Board after shot i, shot 0 being the start of the level
+    private final List<byte[]> boards = new ArrayList<>();
+    private final BoardHistory history = new BoardHistory(ROWS, COLS, CAPACITY);
+
+    private static BoardHistory.State state(int shot) {
+        return new BoardHistory.State(1, 10 * shot, shot, 1, 2);
+    }
+
+    // A shot changes a couple of cells in a row or two, like a landing and a pop
+    private void shoot(int shot) {
+        for (int i = 0; i < 2; i++) {
+            board.cells[random.nextInt(board.cells.length)] = (byte) random.nextInt(6);
+        }
+        boards.add(board.cells.clone());
+        history.record(board, state(shot));
+    }
+
+    private void startLevel() {
+        boards.add(board.cells.clone());
+        history.reset(board, state(0));
+    }
+
+    @Test
+    public void undoAndRedoAcrossTheRingWrap() {
+        startLevel();
+        for (int shot = 1; shot <= SHOTS; shot++) {
+            shoot(shot);
+        }
+
+        // Only the last CAPACITY shots are remembered
+        for (int shot = SHOTS - 1; shot >= SHOTS - CAPACITY; shot--) {
+            assertTrue(history.canUndo());
+            assertEquals(10 * shot, history.undo(board).score);
+            assertArrayEquals("after undoing to shot " + shot, boards.get(shot), board.cells);
+        }
+        assertFalse(history.canUndo());
+
+        for (int shot = SHOTS - CAPACITY + 1; shot <= SHOTS; shot++) {
+            assertTrue(history.canRedo());
+            assertEquals(10 * shot, history.redo(board).score);
+            assertArrayEquals("after redoing shot " + shot, boards.get(shot), board.cells);
+        }
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void shotAfterUndoDropsTheRedos() {
+        startLevel();
+        for (int shot = 1; shot <= SHOTS; shot++) {
+            shoot(shot);
+        }
+        history.undo(board);
+        history.undo(board);
+        boards.subList(SHOTS - 1, boards.size()).clear();
+
+        shoot(SHOTS - 1);
+        assertFalse(history.canRedo());
+        // Shots SHOTS - 3 and SHOTS - 2 are still there under the new one
+        for (int shot = SHOTS - 2; shot >= SHOTS - CAPACITY; shot--) {
+            history.undo(board);
+            assertArrayEquals("after undoing to shot " + shot, boards.get(shot), board.cells);
+        }
+        assertFalse(history.canUndo());
+    }
+}
@@ -0,0 +1,117 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class GameEventBusTest {
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    // Writes each event down as text, on the dispatcher thread
+    private static class Recorder implements GameEventBus.Subscriber {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void bubblesPopped(int level, int count, int points, int score) {
+            events.add("popped " + level + " " + count + " " + points + " " + score);
+        }
+
+        @Override
+        public void bubblesDropped(int level, int count, int points, int score) {
+            events.add("dropped " + level + " " + count + " " + points + " " + score);
+        }
+
+        @Override
+        public void levelStarted(int level, int score) {
+            events.add("started " + level + " " + score);
+        }
+
+        @Override
+        public void levelWon(int level, int score) {
+            events.add("won " + level + " " + score);
+        }
+
+        @Override
+        public void gameOver(int level, int score) {
+            events.add("over " + level + " " + score);
+        }
+    }
+
+    // A level: its start, a few shots that pop and drop, then a win
+    private static void playLevel(GameEventBus bus, Recorder expected, int level) {
+        int score = 1000 * level;
+        bus.levelStarted(level, score);
+        expected.levelStarted(level, score);
+        for (int shot = 1; shot <= 10; shot++) {
+            score += 30;
+            bus.bubblesPopped(level, 3, 30, score);
+            expected.bubblesPopped(level, 3, 30, score);
+            score += 20 * shot;
+            bus.bubblesDropped(level, shot, 20 * shot, score);
+            expected.bubblesDropped(level, shot, 20 * shot, score);
+        }
+        bus.levelWon(level, score);
+        expected.levelWon(level, score);
+    }
+
+    @Test
+    public void everySubscriberGetsEveryEventInOrder() {
+        GameEventBus bus = new GameEventBus();
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        bus.subscribe(first);
+        bus.subscribe(second);
+
+        Recorder expected = new Recorder();
+        for (int level = 1; level <= 200; level++) {
+            playLevel(bus, expected, level);
+            // Far less than a ring between flushes, so nothing is dropped
+            assertTrue(bus.flush(TIMEOUT));
+        }
+        bus.gameOver(200, 1);
+        expected.gameOver(200, 1);
+        assertTrue(bus.flush(TIMEOUT));
+
+        assertEquals(0, bus.dropped());
+        assertEquals(expected.events, first.events);
+        assertEquals(expected.events, second.events);
+    }
+
+    @Test
+    public void failingSubscriberDoesNotStopTheOthers() {
+        GameEventBus bus = new GameEventBus();
+        bus.subscribe(new GameEventBus.Subscriber() {
+            @Override
+            public void bubblesPopped(int level, int count, int points, int score) {
+                throw new IllegalStateException("subscriber bug");
+            }
+        });
+        Recorder recorder = new Recorder();
+        bus.subscribe(recorder);
+
+        Recorder expected = new Recorder();
+        playLevel(bus, expected, 1);
+        assertTrue(bus.flush(TIMEOUT));
+        assertEquals(expected.events, recorder.events);
+    }
+
+    @Test
+    public void unsubscribedGetsNothingMore() {
+        GameEventBus bus = new GameEventBus();
+        Recorder recorder = new Recorder();
+        bus.subscribe(recorder);
+        bus.levelStarted(1, 0);
+        assertTrue(bus.flush(TIMEOUT));
+
+        bus.unsubscribe(recorder);
+        bus.levelWon(1, 500);
+        assertTrue(bus.flush(TIMEOUT));
+        assertEquals(1, recorder.events.size());
+        assertEquals(0, bus.dropped());
+    }
+}
@@ -0,0 +1,46 @@
+package Shooting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GameSnapshotTest {
+    private static GameSnapshot snapshot() {
+        Level board = Level.random(new Random(11), 12, 16, 6);
+        return new GameSnapshot(4, 12_345, 0x5EEDL, 2, 5, board);
+    }
+
+    @Test
+    public void decodesWhatWasEncoded() throws IOException {
+        GameSnapshot saved = snapshot();
+        GameSnapshot loaded = GameSnapshot.decode(saved.encode());
+        assertEquals(saved.level, loaded.level);
+        assertEquals(saved.score, loaded.score);
+        assertEquals(saved.seed, loaded.seed);
+        assertEquals(saved.nextColor, loaded.nextColor);
+        assertEquals(saved.previewColor, loaded.previewColor);
+        assertEquals(saved.board.colorCount, loaded.board.colorCount);
+        assertArrayEquals(saved.board.cells, loaded.board.cells);
+    }
+
+    @Test
+    public void flippedBitFailsTheChecksum() {
+        byte[] data = snapshot().encode();
+        // Every byte is covered, the stored CRC included
+        for (int i = 0; i < data.length; i++) {
+            data[i] ^= 0x10;
+            try {
+                GameSnapshot.decode(data);
+                fail("Decoded a save with byte " + i + " damaged");
+            } catch (IOException e) {
+                assertEquals("Save file checksum mismatch", e.getMessage());
+            }
+            data[i] ^= 0x10;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class InputQueueTest {
+    // The queue's ring size
+    private static final int FULL = 64;
+
+    private final InputQueue queue = new InputQueue();
+    private final List<InputQueue.Command> commands = new ArrayList<>();
+    private final List<Integer> xs = new ArrayList<>();
+
+    private int drain() {
+        return queue.drain((command, x, y, time) -> {
+            commands.add(command);
+            xs.add(x);
+        });
+    }
+
+    @Test
+    public void fullRingDropsCommandsUntilDrained() {
+        for (int i = 0; i < FULL; i++) {
+            assertTrue(queue.offer(InputQueue.Command.CLICK, i, 0));
+        }
+        assertFalse(queue.offer(InputQueue.Command.UNDO, -1, 0));
+
+        assertEquals(FULL, drain());
+        for (int i = 0; i < FULL; i++) {
+            assertEquals(InputQueue.Command.CLICK, commands.get(i));
+            assertEquals(i, (int) xs.get(i));
+        }
+
+        // The freed slots take commands again, now across the wrap
+        assertTrue(queue.offer(InputQueue.Command.REDO, FULL, 0));
+        assertEquals(1, drain());
+        assertEquals(InputQueue.Command.REDO, commands.get(FULL));
+    }
+
+    @Test
+    public void aimsMergeIntoTheLatestAfterTheCommands() {
+        queue.aim(1, 1);
+        queue.offer(InputQueue.Command.CLICK, 10, 20);
+        queue.aim(2, 2);
+        queue.aim(3, -3);
+
+        assertEquals(2, drain());
+        assertEquals(InputQueue.Command.CLICK, commands.get(0));
+        assertEquals(InputQueue.Command.AIM, commands.get(1));
+        assertEquals(3, (int) xs.get(1));
+        assertEquals(0, drain());
+    }
+
+    @Test(timeout = 30_000)
+    public void consumerSeesEveryCommandInOrder() throws InterruptedException {
+        int total = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                while (!queue.offer(InputQueue.Command.CLICK, i, -i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        int[] next = {0};
+        while (next[0] < total) {
+            queue.drain((command, x, y, time) -> {
+                assertEquals(next[0], x);
+                assertEquals(-next[0], y);
+                next[0]++;
+            });
+            Thread.yield();
+        }
+        producer.join();
+        assertEquals(0, drain());
+    }
+}
@@ -0,0 +1,112 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LeaderboardTest {
+    // Enough results that the writer wants to compact
+    private static final int MANY = 20_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void submitMany(Leaderboard leaderboard) throws InterruptedException {
+        for (int i = 0; i < MANY; i++) {
+            leaderboard.submit(i % 7, 1 + i % 20, i, i % 3 != 0);
+        }
+        leaderboard.flush();
+    }
+
+    // What the index holds, as text to compare across reopening
+    private static List<String> index(Leaderboard leaderboard) {
+        List<String> index = new ArrayList<>();
+        for (Leaderboard.Entry entry : leaderboard.top()) {
+            index.add(describe(entry));
+        }
+        for (int level = 0; level <= 20; level++) {
+            Leaderboard.Entry best = leaderboard.bestAt(level);
+            index.add(best == null ? "-" : describe(best));
+        }
+        return index;
+    }
+
+    private static String describe(Leaderboard.Entry entry) {
+        return entry.time + " " + entry.score + " " + entry.player + " " + entry.level + " " + entry.won;
+    }
+
+    @Test
+    public void tornTailIsCutOffOnReopen() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("leaderboard.log");
+        Leaderboard leaderboard = new Leaderboard(file, 10);
+        for (int i = 0; i < 100; i++) {
+            leaderboard.submit(1, 1 + i % 5, 50 * i, i % 2 == 0);
+        }
+        leaderboard.close();
+        List<String> index = index(leaderboard);
+        long size = Files.size(file);
+        assertEquals(Leaderboard.HEADER_SIZE + 100 * Leaderboard.RECORD_SIZE, size);
+
+        // A whole record with a bad checksum, then one cut short
+        byte[] tail = new byte[Leaderboard.RECORD_SIZE + Leaderboard.RECORD_SIZE / 2];
+        tail[0] = 1;
+        tail[12] = 127;
+        Files.write(file, tail, StandardOpenOption.APPEND);
+
+        Leaderboard reopened = new Leaderboard(file, 10);
+        assertEquals(100, reopened.logRecords());
+        assertEquals(index, index(reopened));
+        assertEquals(size, Files.size(file));
+
+        // Later results go where the tail was
+        reopened.submit(1, 3, 1_000_000, false);
+        reopened.close();
+        Leaderboard again = new Leaderboard(file, 10);
+        assertEquals(101, again.logRecords());
+        assertEquals(1_000_000, again.top().get(0).score);
+        again.close();
+    }
+
+    @Test
+    public void compactedLogReopensToTheSameIndex() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("leaderboard.log");
+        Leaderboard leaderboard = new Leaderboard(file, 10);
+        submitMany(leaderboard);
+        leaderboard.close();
+        assertTrue(leaderboard.compactions() > 0);
+        List<String> index = index(leaderboard);
+
+        Leaderboard reopened = new Leaderboard(file, 10);
+        assertTrue(reopened.logRecords() < MANY);
+        assertEquals(index, index(reopened));
+        reopened.close();
+    }
+
+    @Test
+    public void failedCompactionKeepsTheBatch() throws IOException, InterruptedException {
+        Path file = folder.getRoot().toPath().resolve("leaderboard.log");
+        // A directory where the rewritten log would go makes every compaction fail
+        Files.createDirectory(file.resolveSibling("leaderboard.log.compact"));
+
+        Leaderboard leaderboard = new Leaderboard(file, 10);
+        submitMany(leaderboard);
+        int best = leaderboard.top().get(0).score;
+        leaderboard.close();
+        assertEquals(0, leaderboard.compactions());
+
+        Leaderboard reopened = new Leaderboard(file, 10);
+        assertEquals(MANY, reopened.logRecords());
+        assertEquals(best, reopened.top().get(0).score);
+        reopened.close();
+    }
+}
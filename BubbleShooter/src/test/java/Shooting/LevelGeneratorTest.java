@@ -0,0 +1,22 @@
+package Shooting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class LevelGeneratorTest {
+    private static final int LEVELS = 4;
+
+    @Test
+    public void sequentialGeneratorAcceptsWhatParallelOneDoes() {
+        List<Level> parallel = new LevelGenerator(120, 0.4, true).generate(LEVELS, 7);
+        List<Level> sequential = new LevelGenerator(120, 0.4, false).generate(LEVELS, 7);
+        for (int i = 0; i < LEVELS; i++) {
+            assertEquals(parallel.get(i).colorCount, sequential.get(i).colorCount);
+            assertArrayEquals("level " + (i + 1), parallel.get(i).cells, sequential.get(i).cells);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package Shooting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LevelPackTest {
+    private static final int ROWS = 12;
+    private static final int COLS = 16;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Level> levels() {
+        Random random = new Random(7);
+        return Arrays.asList(Level.random(random, ROWS, COLS, 5), Level.random(random, ROWS, COLS, 6));
+    }
+
+    // Writes a pack of two levels, lets damage change its bytes and opens it
+    private LevelPackReader damagedPack(Consumer<ByteBuffer> damage) throws IOException {
+        Path file = folder.newFile("levels.pack").toPath();
+        LevelPack.write(file, levels(), ROWS, COLS);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        damage.accept(bytes);
+        Files.write(file, bytes.array());
+        return LevelPackReader.open(file);
+    }
+
+    private static int recordOffset(ByteBuffer pack, int index) {
+        return pack.getInt(pack.getInt(12) + 4 * index);
+    }
+
+    private static void assertCorrupt(LevelPackReader reader, int index) {
+        try {
+            reader.read(index);
+            fail("Read a damaged level");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("level " + index));
+        }
+    }
+
+    @Test
+    public void levelsReadBackAsWritten() throws IOException {
+        // An odd column count leaves the last byte of a record half used
+        int cols = 11;
+        Random random = new Random(3);
+        Level full = new Level(ROWS, cols, 8);
+        for (int i = 0; i < full.cells.length; i++) {
+            full.cells[i] = (byte) (1 + random.nextInt(8));
+        }
+        Level shallow = Level.random(random, ROWS, cols, 4);
+        Level empty = new Level(ROWS, cols, 3);
+        List<Level> levels = Arrays.asList(shallow, full, empty);
+        Path file = folder.newFile("levels.pack").toPath();
+        LevelPack.write(file, levels, ROWS, cols);
+
+        LevelPackReader reader = LevelPackReader.open(file);
+        assertEquals(levels.size(), reader.size());
+        assertEquals(ROWS, reader.rows);
+        assertEquals(cols, reader.cols);
+        // One Level reused for all, so rows a record does not store must be cleared
+        Level into = new Level(ROWS, cols, 0);
+        for (int i : new int[] {1, 0, 2}) {
+            reader.read(i, into);
+            assertEquals(levels.get(i).colorCount, into.colorCount);
+            assertArrayEquals("level " + i, levels.get(i).cells, into.cells);
+        }
+    }
+
+    @Test
+    public void recordOutsideThePackIsRejected() throws IOException {
+        LevelPackReader reader = damagedPack(pack -> pack.putInt(pack.getInt(12) + 4, pack.capacity() + 100));
+        reader.read(0);
+        assertCorrupt(reader, 1);
+    }
+
+    @Test
+    public void recordRunningPastTheEndIsRejected() throws IOException {
+        LevelPackReader reader = damagedPack(pack -> pack.putInt(pack.getInt(12) + 4, pack.capacity() - 3));
+        assertCorrupt(reader, 1);
+    }
+
+    @Test
+    public void cellPastTheColourCountIsRejected() throws IOException {
+        // Level 0 has five colours, so cell values 0 to 5; 0xF is far past them
+        LevelPackReader reader = damagedPack(pack -> pack.put(recordOffset(pack, 0) + 2 + 10, (byte) 0xF1));
+        assertCorrupt(reader, 0);
+        reader.read(1);
+    }
+
+    @Test
+    public void colourCountPastThePaletteIsRejected() throws IOException {
+        LevelPackReader reader = damagedPack(pack -> pack.put(recordOffset(pack, 1), (byte) 40));
+        assertCorrupt(reader, 1);
+    }
+}
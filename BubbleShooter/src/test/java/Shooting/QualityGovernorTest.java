@@ -0,0 +1,62 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class QualityGovernorTest {
+    private static final long SLOW = 30_000_000L;
+    private static final long FAST = 2_000_000L;
+
+    // Feeds frames until the tier changes or the count runs out; true if it changed
+    private static boolean feed(QualityGovernor governor, long frameNanos, int frames) {
+        for (int i = 0; i < frames; i++) {
+            if (governor.frameFinished(frameNanos)) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void stepsDownWhenFramesRunLong() {
+        QualityGovernor governor = new QualityGovernor();
+        governor.adaptive();
+        assertTrue(feed(governor, SLOW, QualityGovernor.WINDOW));
+        assertEquals(QualityGovernor.Tier.NO_GLOW, governor.tier());
+    }
+
+    // Steps FULL down to NO_GLOW on a window of long frames, then lands a GC
+    // pause in the first window at NO_GLOW so the step looks like it bought
+    // nothing: the governor goes back to FULL and makes it the floor
+    private static void setFloorAtFull(QualityGovernor governor) {
+        governor.adaptive();
+        feed(governor, 11_000_000L, QualityGovernor.WINDOW - 7);
+        assertTrue(feed(governor, SLOW, 7));
+        assertEquals(QualityGovernor.Tier.NO_GLOW, governor.tier());
+        feed(governor, 100_000_000L, 6);
+        assertTrue(feed(governor, 11_000_000L, QualityGovernor.WINDOW - 6));
+        assertEquals(QualityGovernor.Tier.FULL, governor.tier());
+    }
+
+    @Test
+    public void floorFromOneUnluckyWindowDoesNotHoldAgainstSlowFrames() {
+        QualityGovernor governor = new QualityGovernor();
+        setFloorAtFull(governor);
+
+        // Frames keep running long at FULL: the governor must step down again
+        assertTrue(feed(governor, SLOW, 10 * QualityGovernor.WINDOW));
+        assertEquals(QualityGovernor.Tier.NO_GLOW, governor.tier());
+    }
+
+    @Test
+    public void floorLapsesAfterAWhile() {
+        QualityGovernor governor = new QualityGovernor();
+        setFloorAtFull(governor);
+
+        // Once frames have been fine for long enough, one slow window is
+        // enough to step down again
+        feed(governor, FAST, 48 * QualityGovernor.WINDOW);
+        assertTrue(feed(governor, SLOW, QualityGovernor.WINDOW));
+        assertEquals(QualityGovernor.Tier.NO_GLOW, governor.tier());
+    }
+}
@@ -0,0 +1,78 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SpriteSetTest {
+    private static final float FINAL_SCALE = 2;
+    private static final long TIMEOUT_NANOS = 60_000_000_000L;
+
+    private final BufferedImage canvas = new BufferedImage(
+        Math.round(BubbleShooterGame.WINDOW_WIDTH * FINAL_SCALE),
+        Math.round(BubbleShooterGame.WINDOW_HEIGHT * FINAL_SCALE), BufferedImage.TYPE_INT_RGB);
+
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    private void paint(BubbleShooterGame game, float scale) {
+        game.setSize(Math.round(BubbleShooterGame.WINDOW_WIDTH * scale),
+                     Math.round(BubbleShooterGame.WINDOW_HEIGHT * scale));
+        Graphics2D g2d = canvas.createGraphics();
+        try {
+            game.tick();
+            game.paintComponent(g2d);
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    // Paints until the set for the game's scale has come in from the worker
+    private void settle(BubbleShooterGame game, float scale) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (game.spriteScale() != scale) {
+            assertTrue("no sprites for scale " + scale, System.nanoTime() < deadline);
+            Thread.sleep(10);
+            paint(game, scale);
+        }
+    }
+
+    @Test
+    public void resizeKeepsOnlyTheSetInUse() throws InterruptedException {
+        long before = BubbleShooterGame.sharedAssetBytes();
+        BubbleShooterGame resized = new BubbleShooterGame(new Random(1), false);
+        paint(resized, 1);
+        assertEquals(1, resized.spriteScale(), 0);
+
+        // A window dragged out to twice the size, a frame at every scale on the way
+        for (float scale = 1 + 1 / Viewport.STEP; scale <= FINAL_SCALE; scale += 1 / Viewport.STEP) {
+            paint(resized, scale);
+        }
+        settle(resized, FINAL_SCALE);
+        long resizedBytes = BubbleShooterGame.sharedAssetBytes() - before;
+        resized.close();
+        assertEquals(before, BubbleShooterGame.sharedAssetBytes());
+
+        // The same set built straight away, for comparison
+        BubbleShooterGame direct = new BubbleShooterGame(new Random(1), false);
+        paint(direct, FINAL_SCALE);
+        assertEquals(resizedBytes, BubbleShooterGame.sharedAssetBytes() - before);
+
+        // A second game at that scale shares the set, and keeps it when the first goes
+        BubbleShooterGame sharing = new BubbleShooterGame(new Random(2), false);
+        paint(sharing, FINAL_SCALE);
+        assertEquals(resizedBytes, BubbleShooterGame.sharedAssetBytes() - before);
+        direct.close();
+        assertEquals(resizedBytes, BubbleShooterGame.sharedAssetBytes() - before);
+        sharing.close();
+        assertEquals(before, BubbleShooterGame.sharedAssetBytes());
+    }
+}
@@ -0,0 +1,81 @@
+package Shooting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class UndoTest {
+    @BeforeClass
+    public static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    // A level whose top row is all one colour, won by one shot of that colour
+    private static BubbleShooterGame oneShotFromWinning() {
+        BubbleShooterGame game = new BubbleShooterGame(new Random(1), false);
+        game.level = 1;
+        Level layout = new Level(BubbleShooterGame.ROWS, BubbleShooterGame.COLS, 5);
+        for (int col = 0; col < layout.cols; col++) {
+            layout.set(0, col, 0);
+        }
+        game.startLevel(layout);
+        game.nextBubble.color = 0;
+        return game;
+    }
+
+    private static void shootUp(BubbleShooterGame game) {
+        assertTrue(game.fireAt(BubbleShooterGame.WINDOW_WIDTH / 2, BubbleShooterGame.SHOOTER_Y - 100));
+        for (int tick = 0; tick < 500 && !game.shootingBubbles.isEmpty(); tick++) {
+            game.updateGame();
+        }
+    }
+
+    @Test
+    public void undoStepsBackAShot() {
+        BubbleShooterGame game = oneShotFromWinning();
+        game.nextBubble.color = 1;
+        shootUp(game);
+        assertEquals(BubbleShooterGame.COLS + 1, game.board.bubbleCount());
+        assertTrue(game.undo());
+        assertEquals(BubbleShooterGame.COLS, game.board.bubbleCount());
+        assertTrue(game.redo());
+        assertEquals(BubbleShooterGame.COLS + 1, game.board.bubbleCount());
+    }
+
+    @Test
+    public void wonLevelCannotBeUndone() {
+        BubbleShooterGame game = oneShotFromWinning();
+        shootUp(game);
+        assertTrue(game.gameWon);
+        assertFalse(game.undo());
+        assertFalse(game.redo());
+        assertTrue(game.gameWon);
+        assertEquals(0, game.board.bubbleCount());
+    }
+
+    @Test
+    public void winIsPublishedOncePerLevel() {
+        BubbleShooterGame game = oneShotFromWinning();
+        AtomicInteger wins = new AtomicInteger();
+        game.events.subscribe(new GameEventBus.Subscriber() {
+            @Override
+            public void levelWon(int level, int score) {
+                wins.incrementAndGet();
+            }
+        });
+        shootUp(game);
+        // The board stays empty, so every further step sees the win again
+        for (int tick = 0; tick < 10; tick++) {
+            game.updateGame();
+        }
+        assertTrue(game.events.flush(TimeUnit.SECONDS.toNanos(10)));
+        assertEquals(1, wins.get());
+    }
+}